@@ -2,6 +2,7 @@ import algorithm.ChameleonAlgorithm;
 import calculators.ResultsCalculator;
 import graphics.ResultsVisualization;
 import helpers.CsvParser;
+import helpers.PointDeduplicator;
 import model.Cluster;
 import model.Point;
 import model.Results;
@@ -35,9 +36,14 @@ public class Combiner {
 
         System.out.println("Number of points: " + points.size());
 
+        // Collapse points with identical coordinates - distance 0 gives infinite weights
+        PointDeduplicator pointDeduplicator = new PointDeduplicator(0);
+        List<Point> representatives = pointDeduplicator.deduplicate(points);
+        System.out.println("Number of unique points: " + representatives.size());
+
         // Run ChameleonAlgorithm algorithm
-        ChameleonAlgorithm chameleonAlgorithm = new ChameleonAlgorithm(k, initNrOfClusters, resultNrOfClusters, points);
-        List<Cluster> clusters = chameleonAlgorithm.run();
+        ChameleonAlgorithm chameleonAlgorithm = new ChameleonAlgorithm(k, initNrOfClusters, resultNrOfClusters, representatives);
+        List<Cluster> clusters = pointDeduplicator.expand(chameleonAlgorithm.run());
 
         // Compute results
         ResultsCalculator resultsCalculator = new ResultsCalculator();
@@ -0,0 +1,69 @@
+package algorithm;
+
+import model.Point;
+
+import java.util.List;
+
+/**
+ * Reference storage of the graphs - adjacency matrices of boxed weights, missing edges are null.<br>
+ * Both directions of the edge and the k-nn graph share a single Double object.<br>
+ */
+public class BoxedGraphStorage implements GraphStorage {
+
+    private Double[][] graph; // Adjacency matrix of the complete graph
+    private Double[][] knnGraph; // Adjacency matrix of the k-nn graph
+
+    /**
+     * BoxedGraphStorage object constructor
+     * @param nrOfPoints number of vertices
+     */
+    public BoxedGraphStorage(int nrOfPoints) {
+        this.graph = new Double[nrOfPoints][nrOfPoints];
+        this.knnGraph = new Double[nrOfPoints][nrOfPoints];
+    }
+
+    @Override
+    public int size() {
+        return graph.length;
+    }
+
+    @Override
+    public double getWeight(int first, int second) {
+        return graph[first][second];
+    }
+
+    @Override
+    public void setWeight(int first, int second, double weight) {
+        Double boxedWeight = weight;
+        graph[first][second] = boxedWeight;
+        graph[second][first] = boxedWeight;
+    }
+
+    @Override
+    public boolean isKnnEdge(int first, int second) {
+        return knnGraph[first][second] != null;
+    }
+
+    @Override
+    public void addKnnEdge(int first, int second) {
+        knnGraph[first][second] = graph[first][second];
+    }
+
+    @Override
+    public void removeKnnEdge(int first, int second) {
+        knnGraph[first][second] = null;
+    }
+
+    @Override
+    public Double[][] createSubgraph(List<Point> subgraphPoints) {
+        Double[][] subgraph = new Double[subgraphPoints.size()][subgraphPoints.size()];
+
+        for (int i = 0; i < subgraphPoints.size(); i++) {
+            for (int j = 0; j < subgraphPoints.size(); j++) {
+                subgraph[i][j] = graph[subgraphPoints.get(i).getId()][subgraphPoints.get(j).getId()];
+            }
+        }
+
+        return subgraph;
+    }
+}
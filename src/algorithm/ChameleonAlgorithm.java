@@ -1,22 +1,24 @@
 package algorithm;
 
-import calculators.CoordinatesCalculator;
+import calculators.PointsDistanceCalculator;
 import model.Cluster;
 import model.Point;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToDoubleBiFunction;
 import java.util.stream.Collectors;
 
 
-public class ChameleonAlgorithm {
+public class ChameleonAlgorithm implements AutoCloseable {
 
     private int k; // Number of neighbours for the first part of the algorithm (k-nn algorithm)
     private int initNrOfClusters; // Expected number of clusters after the second part of the algorithm
     private int resultNrOfClusters; // Expected number of clusters at the end of the algorithm
     private List<Point> points; // List of points for clustering
-    private Double[][] graph; // Adjacency matrix of the complete graph. Each vertex represents single point, each edge represents the weight of the connection between two points (1/distance).
-    private Double[][] knnGraph; // Adjacency matrix of the k-nn graph
-    private List<Cluster> clusters = new ArrayList<>(); // List of result clusters
+    private GraphStorage graph; // Complete graph and k-nn graph. Each vertex represents single point, each edge represents the weight of the connection between two points (1/distance).
+    private List<Cluster> clusters; // List of result clusters
 
     /**
      * Chameleon Algorithm object constructor
@@ -26,14 +28,55 @@ public class ChameleonAlgorithm {
      * @param points List of points for clustering
      */
     public ChameleonAlgorithm(int k, int initNrOfClusters, int resultNrOfClusters, List<Point> points) {
+        this(k, initNrOfClusters, resultNrOfClusters, points, StorageMode.DOUBLE);
+    }
+
+    /**
+     * Chameleon Algorithm object constructor with chosen storage of the graphs
+     * @param k Number of neighbours for the first part of the algorithm (k-nn algorithm)
+     * @param initNrOfClusters Expected number of clusters after the second part of the algorithm
+     * @param resultNrOfClusters Expected number of clusters at the end of the algorithm
+     * @param points List of points for clustering
+     * @param storageMode storage of the complete graph and of the k-nn graph
+     */
+    public ChameleonAlgorithm(int k, int initNrOfClusters, int resultNrOfClusters, List<Point> points,
+                              StorageMode storageMode) {
+        this(k, initNrOfClusters, resultNrOfClusters, points, storageMode.createStorage(points.size()),
+                new ArrayList<>());
+    }
+
+
+    private ChameleonAlgorithm(int k, int initNrOfClusters, int resultNrOfClusters, List<Point> points,
+                               GraphStorage graph, List<Cluster> clusters) {
         this.k = k;
         this.initNrOfClusters = initNrOfClusters;
         this.resultNrOfClusters = resultNrOfClusters;
         this.points = points;
-        this.graph = new Double[points.size()][points.size()];
-        this.knnGraph = new Double[points.size()][points.size()];
+        this.graph = graph;
+        this.clusters = clusters;
+    }
+
+    /**
+     * Method to create new algorithm which starts from the result of the first part of this algorithm.<br>
+     * Graphs and entry clusters are shared, not copied - they are not modified by the second and the third part,<br>
+     * so many copies with different parameters can run concurrently.<br>
+     * @param initNrOfClusters Expected number of clusters after the second part of the algorithm
+     * @param resultNrOfClusters Expected number of clusters at the end of the algorithm
+     * @return algorithm ready for the second part
+     */
+    public ChameleonAlgorithm copyAfterFirstPart(int initNrOfClusters, int resultNrOfClusters) {
+        return new ChameleonAlgorithm(k, initNrOfClusters, resultNrOfClusters, points, graph,
+                new ArrayList<>(clusters));
     }
 
+    /**
+     * Method to release the storage of the graphs, e.g. off-heap memory.<br>
+     * Clusters stay valid, but the algorithm and its copies made with copyAfterFirstPart can not be used after it.<br>
+     */
+    @Override
+    public void close() {
+        graph.close();
+    }
 
     /**
      * Combiner method of the algorithm<br>
@@ -46,16 +89,33 @@ public class ChameleonAlgorithm {
      * @return list of clusters after all three parts of the algorithm
      */
     public List<Cluster> run() {
-        // First part of the algorithm
+        runFirstPart();
+        runSecondPart();
+        runThirdPart();
+
+        return clusters;
+    }
+
+    /**
+     * First part of the algorithm - build k-nn graph and initialise entry clusters
+     * @return list of connected components of the k-nn graph
+     */
+    public List<Cluster> runFirstPart() {
         initCompleteGraph();
         runKnn();
         initClusters();
-        // Second part of the algorithm
+
+        return clusters;
+    }
+
+    /**
+     * Second part of the algorithm - partition the biggest clusters until the initNrOfClusters is achieved
+     * @return list of clusters after partition
+     */
+    public List<Cluster> runSecondPart() {
         while (clusters.size() < initNrOfClusters) {
             // Find cluster to partition
-            Cluster clusterToPartition = clusters.stream()
-                    .max(Comparator.comparing(c -> c.getPoints().size()))
-                    .get();
+            Cluster clusterToPartition = findClusterToPartition(clusters);
             List<Cluster> twoClusters = partitionCluster(clusterToPartition);
             // Add two new clusters after partition to the list of the clusters
             clusters.addAll(twoClusters);
@@ -63,7 +123,93 @@ public class ChameleonAlgorithm {
             clusters.remove(clusterToPartition);
         }
 
-        // Third part of the algorithm
+        return clusters;
+    }
+
+    /**
+     * Second part of the algorithm with graphs of the clusters created concurrently.<br>
+     * Partitions of runSecondPart are planned first - bisection only sorts the points, so the same clusters<br>
+     * are found in the same order. Graphs and EC of the planned clusters are created on the thread pool,<br>
+     * graphs of the clusters partitioned again are not created at all. Result is the same as of runSecondPart.<br>
+     * @param nrOfThreads number of threads
+     * @return list of clusters after partition
+     */
+    public List<Cluster> runSecondPartConcurrently(int nrOfThreads) {
+        // Plan partitions - the same order of clusters as in runSecondPart
+        List<Cluster> plannedClusters = new ArrayList<>(clusters);
+        while (plannedClusters.size() < initNrOfClusters) {
+            Cluster clusterToPartition = findClusterToPartition(plannedClusters);
+            for (List<Point> part : bisectPoints(clusterToPartition.getPoints())) {
+                Cluster partCluster = new Cluster();
+                partCluster.setPoints(part);
+                plannedClusters.add(partCluster);
+            }
+            plannedClusters.removeIf(c -> c == clusterToPartition);
+        }
+
+        // Entry clusters which were not partitioned already have their graphs
+        Set<Cluster> entryClusters = Collections.newSetFromMap(new IdentityHashMap<>());
+        entryClusters.addAll(clusters);
+        List<Cluster> newClusters = plannedClusters.stream()
+                .filter(c -> !entryClusters.contains(c))
+                .collect(Collectors.toList());
+
+        ForkJoinPool pool = new ForkJoinPool(nrOfThreads);
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(newClusters.stream()
+                            .map(ClusterGraphTask::new)
+                            .collect(Collectors.toList()));
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        clusters = plannedClusters;
+        return clusters;
+    }
+
+    /**
+     * Task to set graph of the planned cluster
+     */
+    private class ClusterGraphTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Cluster cluster;
+
+        private ClusterGraphTask(Cluster cluster) {
+            this.cluster = cluster;
+        }
+
+        @Override
+        protected void compute() {
+            setClusterGraph(cluster);
+        }
+    }
+
+    /**
+     * Method to find the cluster to partition - the cluster with the greatest weight (number of represented points).<br>
+     * Single point can not be partitioned, so clusters with at least two points are preferred.<br>
+     * @param clustersToSearch list of clusters
+     * @return cluster to partition
+     */
+    private static Cluster findClusterToPartition(List<Cluster> clustersToSearch) {
+        return clustersToSearch.stream()
+                .filter(c -> c.getPoints().size() > 1)
+                .max(Comparator.comparing(Cluster::getWeight))
+                .orElseGet(() -> clustersToSearch.stream()
+                        .max(Comparator.comparing(c -> c.getPoints().size()))
+                        .get());
+    }
+
+    /**
+     * Third part of the algorithm - merge the best connected clusters until the resultNrOfClusters is achieved
+     * @return list of result clusters
+     */
+    public List<Cluster> runThirdPart() {
         while (clusters.size() > resultNrOfClusters) {
             // Find two clusters to connect
             List<Cluster> twoClusters = findTwoClustersToConnect();
@@ -83,19 +229,13 @@ public class ChameleonAlgorithm {
      It computes the distances between each pair of points and assigns the weight as 1/distance.
      */
     private void initCompleteGraph() {
+        PointsDistanceCalculator distanceCalculator = new PointsDistanceCalculator(points);
         for (int i = 0; i < points.size(); i++) {
-            for (int j = 0; j < points.size(); j++) {
-                if (i == j) {
-                    continue;
-                }
-                if (graph[j][i] != null) {
-                    graph[i][j] = graph[j][i];
-                    knnGraph[i][j] = graph[i][j];
-                    continue;
-                }
+            for (int j = i + 1; j < points.size(); j++) {
                 // weight = 1 / distance
-                graph[i][j] = 1.0 / CoordinatesCalculator.getDistance(points.get(i), points.get(j));
-                knnGraph[i][j] = graph[i][j];
+                graph.setWeight(i, j, 1.0 / distanceCalculator.getDistance(i, j));
+                graph.addKnnEdge(i, j);
+                graph.addKnnEdge(j, i);
             }
         }
     }
@@ -111,33 +251,114 @@ public class ChameleonAlgorithm {
     private void runKnn() {
         // Find k-nearest neighbours for each point
         for (int i = 0; i < points.size(); i++) {
-            // Sort weights of edges incident with given point in descending order
-            List<Double> weightsSorted = Arrays.stream(knnGraph[i])
-                    .filter(Objects::nonNull)
-                    .sorted(Comparator.reverseOrder())
-                    .collect(Collectors.toList());
+            // Sort weights of edges incident with given point in ascending order
+            double[] weightsSorted = new double[points.size()];
+            int nrOfEdges = 0;
+            for (int j = 0; j < points.size(); j++) {
+                if (graph.isKnnEdge(i, j)) {
+                    weightsSorted[nrOfEdges++] = graph.getWeight(i, j);
+                }
+            }
+            Arrays.sort(weightsSorted, 0, nrOfEdges);
 
-            // Weight of connection with k-th nearest neighbour
-            double minWeight = weightsSorted.get(k - 1);
+            // Weight of connection with k-th nearest neighbour - k-th from the end
+            double minWeight = weightsSorted[nrOfEdges - k];
 
             // Remove all edges with weight less tan minimal weight
             for (int j = 0; j < points.size(); j++) {
-                if (knnGraph[i][j] != null && knnGraph[i][j] < minWeight) {
-                    knnGraph[i][j] = null;
+                if (graph.isKnnEdge(i, j) && graph.getWeight(i, j) < minWeight) {
+                    graph.removeKnnEdge(i, j);
                 }
             }
         }
 
-        // Make graph undirected
+        makeKnnGraphUndirected();
+    }
+
+    /**
+     * Method to make knnGraph undirected - edge is kept if it connects one of the k nearest neighbours of any of its vertices
+     */
+    private void makeKnnGraphUndirected() {
         for (int i = 0; i < points.size(); i++) {
             for (int j = 0; j < points.size(); j++) {
-                if (knnGraph[i][j] == null && knnGraph[j][i] != null) {
-                    knnGraph[i][j] = knnGraph[j][i];
+                if (!graph.isKnnEdge(i, j) && graph.isKnnEdge(j, i)) {
+                    graph.addKnnEdge(i, j);
                 }
             }
         }
     }
 
+    /**
+     * First part of the algorithm for the graph computed outside of the algorithm.<br>
+     * All rows of the graph have to be set with setGraphRow method before.<br>
+     * @return list of connected components of the k-nn graph
+     */
+    public List<Cluster> runFirstPartFromGraphRows() {
+        makeKnnGraphUndirected();
+        initClusters();
+
+        return clusters;
+    }
+
+    /**
+     * Method to set single row of the complete graph and of the directed k-nn graph.<br>
+     * Rows of different points can be set concurrently.<br>
+     * @param idx index of the point
+     * @param weights weights of edges between the point and all other points, computed with computeGraphRow
+     * @param minWeight weight of connection with k-th nearest neighbour, computed with computeMinWeight
+     */
+    public void setGraphRow(int idx, double[] weights, double minWeight) {
+        for (int j = 0; j < weights.length; j++) {
+            if (j == idx) {
+                continue;
+            }
+            graph.setWeight(idx, j, weights[j]);
+            if (weights[j] >= minWeight) {
+                graph.addKnnEdge(idx, j);
+            }
+        }
+    }
+
+    /**
+     * Method to compute single row of the complete graph - weights between the point and all other points.<br>
+     * Weights are the same as computed by initCompleteGraph.<br>
+     * @param distanceCalculator distance calculator of all points for clustering
+     * @param idx index of the point
+     * @return weights of edges (1/distance), the weight with the point itself is 0
+     */
+    public static double[] computeGraphRow(PointsDistanceCalculator distanceCalculator, int idx) {
+        double[] weights = new double[distanceCalculator.size()];
+        for (int j = 0; j < weights.length; j++) {
+            if (j == idx) {
+                continue;
+            }
+            // Complete graph is computed for the first point with lower index and copied for the second one
+            weights[j] = 1.0 / distanceCalculator.getDistance(Math.min(idx, j), Math.max(idx, j));
+        }
+
+        return weights;
+    }
+
+    /**
+     * Method to find the weight of connection with k-th nearest neighbour
+     * @param weights row of the complete graph computed with computeGraphRow
+     * @param idx index of the point
+     * @param k number of neighbours
+     * @return weight of connection with k-th nearest neighbour
+     */
+    public static double computeMinWeight(double[] weights, int idx, int k) {
+        double[] weightsSorted = new double[weights.length - 1];
+        for (int j = 0, l = 0; j < weights.length; j++) {
+            if (j != idx) {
+                weightsSorted[l++] = weights[j];
+            }
+        }
+        // Sort weights in ascending order, k-th greatest weight is k-th from the end
+        Arrays.sort(weightsSorted);
+
+        return weightsSorted[weightsSorted.length - k];
+    }
+
     /**
      * Method to init clusters.<br>
      * It finds connected components in knnGraph using DFS algorithm.<br>
@@ -150,7 +371,7 @@ public class ChameleonAlgorithm {
                 List<Point> connectedPoints = runDfs(i, visitedPoints, new ArrayList<>());
                 Cluster cluster = new Cluster();
                 cluster.setPoints(connectedPoints);
-                cluster.setGraph(createSubgraph(connectedPoints));
+                setClusterGraph(cluster);
                 clusters.add(cluster);
             }
         }
@@ -167,7 +388,7 @@ public class ChameleonAlgorithm {
         visitedPoints[idx] = true;
         connectedPoints.add(points.get(idx));
         for (int i = 0; i < visitedPoints.length; i++) {
-            if (!visitedPoints[i] && knnGraph[idx][i] != null) {
+            if (!visitedPoints[i] && graph.isKnnEdge(idx, i)) {
                 runDfs(i, visitedPoints, connectedPoints);
             }
         }
@@ -177,21 +398,46 @@ public class ChameleonAlgorithm {
 
 
     /**
-     * Method to create subgraph (with given list of points) of original graph.
-     *
-     * @param subgraphPoints list of point that should be connected into a subgraph
-     * @return Adjacency matrix - new graph created from the list of the points
+     * Method to set graph of the cluster - subgraph (with points of the cluster) of original graph.<br>
+     * If the storage does not keep graphs of clusters, or the points of the cluster represent many original points,<br>
+     * EC of the cluster is computed directly from original graph with computeInternalEC.<br>
+     * @param cluster cluster with points
      */
-    private Double[][] createSubgraph(List<Point> subgraphPoints) {
-        Double[][] subgraph = new Double[subgraphPoints.size()][subgraphPoints.size()];
+    private void setClusterGraph(Cluster cluster) {
+        List<Point> clusterPoints = cluster.getPoints();
+        Double[][] subgraph = graph.createSubgraph(clusterPoints);
+        if (subgraph != null) {
+            cluster.setGraph(subgraph);
+            // Without representatives EC computed by the cluster is the same
+            if (cluster.getWeight() == clusterPoints.size()) {
+                return;
+            }
+        }
 
-        for (int i = 0; i < subgraphPoints.size(); i++) {
-            for (int j = 0; j < subgraphPoints.size(); j++) {
-                subgraph[i][j] = graph[subgraphPoints.get(i).getId()][subgraphPoints.get(j).getId()];
+        cluster.setEC(computeInternalEC(clusterPoints, (first, second) -> graph.getWeight(first.getId(), second.getId())));
+    }
+
+    /**
+     * Method to compute internal inter - connectivity of the cluster - sum of weights of edges between its points<br>
+     * divided by the number of points. Point represents getWeight() original points, so each edge is counted<br>
+     * once for each pair of represented points. For points of weight 1 it gives exactly the same result as Cluster.setGraph.<br>
+     * @param clusterPoints points of the cluster
+     * @param weightFunction weight of the edge between two points (1/distance)
+     * @return internal inter - connectivity of the cluster
+     */
+    public static double computeInternalEC(List<Point> clusterPoints, ToDoubleBiFunction<Point, Point> weightFunction) {
+        double weightsSum = 0.0;
+        long nrOfPoints = 0;
+        for (int i = 0; i < clusterPoints.size(); i++) {
+            Point first = clusterPoints.get(i);
+            nrOfPoints += first.getWeight();
+            for (int j = i + 1; j < clusterPoints.size(); j++) {
+                Point second = clusterPoints.get(j);
+                weightsSum += (double) first.getWeight() * second.getWeight() * weightFunction.applyAsDouble(first, second);
             }
         }
 
-        return subgraph;
+        return weightsSum / nrOfPoints;
     }
 
     /**
@@ -203,7 +449,29 @@ public class ChameleonAlgorithm {
      * @return two clusters created from the big one in the input
      */
     private List<Cluster> partitionCluster(Cluster cluster) {
-        List<Point> pointsToPartition = cluster.getPoints();
+        List<List<Point>> twoParts = bisectPoints(cluster.getPoints());
+
+        // Create first cluster
+        Cluster firstCluster = new Cluster();
+        firstCluster.setPoints(twoParts.get(0));
+        setClusterGraph(firstCluster);
+
+
+        // Create second cluster
+        Cluster secondCluster = new Cluster();
+        secondCluster.setPoints(twoParts.get(1));
+        setClusterGraph(secondCluster);
+
+        return Arrays.asList(firstCluster, secondCluster);
+    }
+
+    /**
+     * Method to split list of points into two halves along the axis with greater spread of coordinates.<br>
+     * Halves have equal weights - numbers of represented points, each of them has at least one point.<br>
+     * @param pointsToPartition points to split
+     * @return two lists of points - the first one with smaller coordinates
+     */
+    static List<List<Point>> bisectPoints(List<Point> pointsToPartition) {
         // Sort points by X coordinate in ascending order
         List<Point> pointsHorizontallySorted = pointsToPartition.stream()
                 .sorted(Comparator.comparing(Point::getX))
@@ -225,19 +493,19 @@ public class ChameleonAlgorithm {
         }
 
         int nrOfPoints = pointsToPartition.size();
+        int halfWeight = pointsToPartition.stream().mapToInt(Point::getWeight).sum() / 2;
 
-        // Create first cluster
-        Cluster firstCluster = new Cluster();
-        firstCluster.setPoints(pointsToPartition.subList(0, nrOfPoints / 2));
-        firstCluster.setGraph(createSubgraph(firstCluster.getPoints()));
-
-
-        // Create second cluster
-        Cluster secondCluster = new Cluster();
-        secondCluster.setPoints(pointsToPartition.subList(nrOfPoints / 2, nrOfPoints));
-        secondCluster.setGraph(createSubgraph(secondCluster.getPoints()));
+        // The first part takes points until it has half of the weight
+        int splitIdx = 0;
+        for (int weight = 0; splitIdx < nrOfPoints && weight + pointsToPartition.get(splitIdx).getWeight() <= halfWeight; splitIdx++) {
+            weight += pointsToPartition.get(splitIdx).getWeight();
+        }
+        if (nrOfPoints > 1) {
+            splitIdx = Math.max(1, Math.min(splitIdx, nrOfPoints - 1));
+        }
 
-        return Arrays.asList(firstCluster, secondCluster);
+        return Arrays.asList(pointsToPartition.subList(0, splitIdx),
+                pointsToPartition.subList(splitIdx, nrOfPoints));
     }
 
     /**
@@ -276,50 +544,66 @@ public class ChameleonAlgorithm {
      * @return connection metrics - RI * RC
      */
     private double computeConnectionMetrics(Cluster firstCluster, Cluster secondCluster) {
+        // Compute inter - connectivity between two clusters
+        double bothClustersEC = computeEC(firstCluster, secondCluster);
+
+        return computeConnectionMetrics(firstCluster, secondCluster, bothClustersEC);
+    }
+
+    /**
+     * Method to compute connection metrics between two clusters with known inter - connectivity
+     * @param firstCluster first cluster for which metrics will be determine
+     * @param secondCluster second cluster for which metrics will be determine
+     * @param bothClustersEC inter - connectivity between two clusters
+     * @return connection metrics - RI * RC
+     */
+    static double computeConnectionMetrics(Cluster firstCluster, Cluster secondCluster, double bothClustersEC) {
+        return computeConnectionMetrics(firstCluster.getWeight(), firstCluster.getEC(),
+                secondCluster.getWeight(), secondCluster.getEC(), bothClustersEC);
+    }
+
+    /**
+     * Method to compute connection metrics between two clusters described by their sizes and EC aggregates
+     * @param firstClusterPointsNr number of points in the first cluster (represented points)
+     * @param firstClusterEC internal inter - connectivity of the first cluster
+     * @param secondClusterPointsNr number of points in the second cluster (represented points)
+     * @param secondClusterEC internal inter - connectivity of the second cluster
+     * @param bothClustersEC inter - connectivity between two clusters
+     * @return connection metrics - RI * RC
+     */
+    public static double computeConnectionMetrics(int firstClusterPointsNr, double firstClusterEC,
+                                                  int secondClusterPointsNr, double secondClusterEC,
+                                                  double bothClustersEC) {
         // Relative inter - connectivity
-        double RI = computeRI(firstCluster, secondCluster);
+        double RI = computeRI(firstClusterEC, secondClusterEC, bothClustersEC);
         // Relative closeness
-        double RC = computeRC(firstCluster, secondCluster);
+        double RC = computeRC(firstClusterPointsNr, firstClusterEC, secondClusterPointsNr, secondClusterEC, bothClustersEC);
 
         return RI * RC;
     }
 
     /**
      * Method to compute relative inter - connectivity of the cluster
-     * @param firstCluster first cluster for which RI will be determine
-     * @param secondCluster second cluster for which RI will be determine
+     * @param firstClusterEC internal inter - connectivity of the first cluster
+     * @param secondClusterEC internal inter - connectivity of the second cluster
+     * @param bothClustersEC inter - connectivity between two clusters
      * @return relative inter - connectivity of the cluster
      */
-    private double computeRI(Cluster firstCluster, Cluster secondCluster) {
-        // Compute internal inter - connectivity of the first cluster
-        double firstClusterEC = firstCluster.getEC();
-        // Compute internal inter - connectivity of the second cluster
-        double secondClusterEC = secondCluster.getEC();
-        // Compute inter - connectivity between two clusters
-        double bothClustersEC = computeEC(firstCluster, secondCluster);
-
+    private static double computeRI(double firstClusterEC, double secondClusterEC, double bothClustersEC) {
         return 2 * bothClustersEC / (firstClusterEC + secondClusterEC);
     }
 
     /**
      * Method to connect relative closeness between two clusters
-     * @param firstCluster first cluster for which RI will be determine
-     * @param secondCluster second cluster for which RI will be determine
+     * @param firstClusterPointsNr number of points in the first cluster (represented points)
+     * @param firstClusterEC internal inter - connectivity of the first cluster
+     * @param secondClusterPointsNr number of points in the second cluster (represented points)
+     * @param secondClusterEC internal inter - connectivity of the second cluster
+     * @param bothClustersEC inter - connectivity between two clusters
      * @return relative closeness between two clusters
      */
-    private double computeRC(Cluster firstCluster, Cluster secondCluster) {
-        // Number of points in the first cluster
-        int firstClusterPointsNr = firstCluster.getPoints().size();
-        // Number of points in the second cluster
-        int secondClusterPointsNr = secondCluster.getPoints().size();
-
-        // Compute internal inter - connectivity of the first cluster
-        double firstClusterEC = firstCluster.getEC();
-        // Compute internal inter - connectivity of the second cluster
-        double secondClusterEC = secondCluster.getEC();
-        // Compute inter - connectivity between two clusters
-        double bothClustersEC = computeEC(firstCluster, secondCluster);
-
+    private static double computeRC(int firstClusterPointsNr, double firstClusterEC,
+                                    int secondClusterPointsNr, double secondClusterEC, double bothClustersEC) {
         return bothClustersEC * (firstClusterPointsNr + secondClusterPointsNr) /
                 (secondClusterPointsNr * firstClusterEC + firstClusterPointsNr * secondClusterEC);
     }
@@ -339,7 +623,7 @@ public class ChameleonAlgorithm {
         // For each pair of point from different clusters find connection with minimal weight
         for (Point firstPoint : firstPoints) {
             for (Point secondPoint : secondPoints) {
-                double weight = graph[firstPoint.getId()][secondPoint.getId()];
+                double weight = graph.getWeight(firstPoint.getId(), secondPoint.getId());
                 if (weight < EC) {
                     EC = weight;
                 }
@@ -364,7 +648,7 @@ public class ChameleonAlgorithm {
         points.addAll(secondCluster.getPoints());
 
         resultCluster.setPoints(points);
-        resultCluster.setGraph(createSubgraph(points));
+        setClusterGraph(resultCluster);
 
         return resultCluster;
     }
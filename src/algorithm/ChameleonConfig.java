@@ -0,0 +1,77 @@
+package algorithm;
+
+/**
+ * Immutable parameters of the Chameleon algorithm
+ */
+public final class ChameleonConfig {
+
+    private final int k; // Number of neighbours for the first part of the algorithm (k-nn algorithm)
+    private final int initNrOfClusters; // Expected number of clusters after the second part of the algorithm
+    private final int resultNrOfClusters; // Expected number of clusters at the end of the algorithm
+    private final int nrOfPartitionThreads; // Number of threads of the second part of the algorithm, 1 for sequential partition
+    private final StorageMode storageMode; // Storage of the complete graph and of the k-nn graph
+
+    /**
+     * ChameleonConfig object constructor with sequential partition
+     * @param k Number of neighbours for the first part of the algorithm (k-nn algorithm)
+     * @param initNrOfClusters Expected number of clusters after the second part of the algorithm
+     * @param resultNrOfClusters Expected number of clusters at the end of the algorithm
+     */
+    public ChameleonConfig(int k, int initNrOfClusters, int resultNrOfClusters) {
+        this(k, initNrOfClusters, resultNrOfClusters, 1);
+    }
+
+    /**
+     * ChameleonConfig object constructor
+     * @param k Number of neighbours for the first part of the algorithm (k-nn algorithm)
+     * @param initNrOfClusters Expected number of clusters after the second part of the algorithm
+     * @param resultNrOfClusters Expected number of clusters at the end of the algorithm
+     * @param nrOfPartitionThreads Number of threads of the second part of the algorithm, 1 for sequential partition
+     */
+    public ChameleonConfig(int k, int initNrOfClusters, int resultNrOfClusters, int nrOfPartitionThreads) {
+        this(k, initNrOfClusters, resultNrOfClusters, nrOfPartitionThreads, StorageMode.DOUBLE);
+    }
+
+    /**
+     * ChameleonConfig object constructor with chosen storage of the graphs
+     * @param k Number of neighbours for the first part of the algorithm (k-nn algorithm)
+     * @param initNrOfClusters Expected number of clusters after the second part of the algorithm
+     * @param resultNrOfClusters Expected number of clusters at the end of the algorithm
+     * @param nrOfPartitionThreads Number of threads of the second part of the algorithm, 1 for sequential partition
+     * @param storageMode Storage of the complete graph and of the k-nn graph
+     */
+    public ChameleonConfig(int k, int initNrOfClusters, int resultNrOfClusters, int nrOfPartitionThreads,
+                           StorageMode storageMode) {
+        this.k = k;
+        this.initNrOfClusters = initNrOfClusters;
+        this.resultNrOfClusters = resultNrOfClusters;
+        this.nrOfPartitionThreads = nrOfPartitionThreads;
+        this.storageMode = storageMode;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int getInitNrOfClusters() {
+        return initNrOfClusters;
+    }
+
+    public int getResultNrOfClusters() {
+        return resultNrOfClusters;
+    }
+
+    public int getNrOfPartitionThreads() {
+        return nrOfPartitionThreads;
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    @Override
+    public String toString() {
+        return "k: " + k + ", initNrOfClusters: " + initNrOfClusters + ", resultNrOfClusters: " + resultNrOfClusters
+                + ", nrOfPartitionThreads: " + nrOfPartitionThreads + ", storageMode: " + storageMode;
+    }
+}
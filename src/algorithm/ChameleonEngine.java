@@ -0,0 +1,57 @@
+package algorithm;
+
+import model.Cluster;
+import model.Point;
+
+import java.util.List;
+
+/**
+ * Reusable, thread-safe entry point of the Chameleon algorithm.<br>
+ * The engine holds only immutable parameters - each call creates its own ChameleonAlgorithm,<br>
+ * so one engine can cluster many datasets, also concurrently.<br>
+ */
+public final class ChameleonEngine {
+
+    private final ChameleonConfig config; // Parameters of the algorithm
+
+    /**
+     * ChameleonEngine object constructor
+     * @param config parameters of the algorithm
+     */
+    public ChameleonEngine(ChameleonConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Method to cluster the points with all three parts of the algorithm
+     * @param points list of points with identifiers 0..n-1, they are not modified
+     * @return list of result clusters
+     */
+    public List<Cluster> cluster(List<Point> points) {
+        // Storage of the graphs is released as soon as the clusters are ready
+        try (ChameleonAlgorithm chameleonAlgorithm = new ChameleonAlgorithm(config.getK(), config.getInitNrOfClusters(),
+                config.getResultNrOfClusters(), points, config.getStorageMode())) {
+            chameleonAlgorithm.runFirstPart();
+            if (config.getNrOfPartitionThreads() > 1) {
+                chameleonAlgorithm.runSecondPartConcurrently(config.getNrOfPartitionThreads());
+            } else {
+                chameleonAlgorithm.runSecondPart();
+            }
+
+            return chameleonAlgorithm.runThirdPart();
+        }
+    }
+
+    /**
+     * Method to estimate memory (heap or off-heap, depending on the storage mode) needed to cluster given number of points
+     * @param nrOfPoints number of points
+     * @return estimated number of bytes
+     */
+    public long estimateMemory(int nrOfPoints) {
+        return config.getStorageMode().estimateMemory(nrOfPoints);
+    }
+
+    public ChameleonConfig getConfig() {
+        return config;
+    }
+}
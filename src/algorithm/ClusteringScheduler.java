@@ -0,0 +1,163 @@
+package algorithm;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import model.Cluster;
+import model.Point;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Scheduler of concurrent clustering jobs with memory-aware admission control.<br>
+ * Each job reserves its estimated memory before it starts and releases it when it finishes,<br>
+ * jobs which do not fit in the remaining budget wait in order of submission - memory is reserved by a single<br>
+ * admission thread, so a later job never starts before an earlier one.<br>
+ * OFF_HEAP jobs keep the graphs in direct buffers, their memory is reserved from a separate budget of the direct memory.<br>
+ */
+public class ClusteringScheduler implements AutoCloseable {
+
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+    private static final double DEFAULT_MEMORY_FRACTION = 0.7; // Part of the maximal heap and direct memory used as default budgets
+
+    private final ExecutorService executor; // Executor of the jobs
+    private final ExecutorService admission = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "clustering-admission");
+        thread.setDaemon(true);
+        return thread;
+    }); // Reserves memory of the jobs in order of submission
+    private final int memoryBudgetMegabytes; // Total heap memory of the concurrently running jobs
+    private final Semaphore memory; // Free heap memory of the budget in megabytes
+    private final int directMemoryBudgetMegabytes; // Total direct memory of the concurrently running OFF_HEAP jobs
+    private final Semaphore directMemory; // Free direct memory of the budget in megabytes
+
+    /**
+     * ClusteringScheduler object constructor with the budgets of 70% of the maximal heap and of the maximal direct memory
+     */
+    public ClusteringScheduler() {
+        this((long) (Runtime.getRuntime().maxMemory() * DEFAULT_MEMORY_FRACTION),
+                (long) (getMaxDirectMemory() * DEFAULT_MEMORY_FRACTION));
+    }
+
+    /**
+     * ClusteringScheduler object constructor with virtual threads executor, if available, or cached thread pool
+     * @param memoryBudgetBytes total heap memory of the concurrently running jobs
+     * @param directMemoryBudgetBytes total direct memory of the concurrently running OFF_HEAP jobs
+     */
+    public ClusteringScheduler(long memoryBudgetBytes, long directMemoryBudgetBytes) {
+        this(memoryBudgetBytes, directMemoryBudgetBytes, createExecutor());
+    }
+
+    /**
+     * ClusteringScheduler object constructor
+     * @param memoryBudgetBytes total heap memory of the concurrently running jobs
+     * @param directMemoryBudgetBytes total direct memory of the concurrently running OFF_HEAP jobs
+     * @param executor executor of the jobs, it is shut down on close
+     */
+    public ClusteringScheduler(long memoryBudgetBytes, long directMemoryBudgetBytes, ExecutorService executor) {
+        this.executor = executor;
+        this.memoryBudgetMegabytes = toMegabytes(memoryBudgetBytes);
+        this.memory = new Semaphore(memoryBudgetMegabytes);
+        this.directMemoryBudgetMegabytes = toMegabytes(directMemoryBudgetBytes);
+        this.directMemory = new Semaphore(directMemoryBudgetMegabytes);
+    }
+
+    private static int toMegabytes(long bytes) {
+        return (int) Math.max(Math.min(bytes / BYTES_PER_MEGABYTE, Integer.MAX_VALUE), 1);
+    }
+
+    /**
+     * Method to get the limit of the direct memory - -XX:MaxDirectMemorySize or the maximal heap, which is its default
+     * @return maximal direct memory in bytes
+     */
+    private static long getMaxDirectMemory() {
+        try {
+            long maxDirectMemory = Long.parseLong(ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                    .getVMOption("MaxDirectMemorySize").getValue());
+            if (maxDirectMemory > 0) {
+                return maxDirectMemory;
+            }
+        } catch (RuntimeException e) {
+            // Not a HotSpot JVM - the default limit is used
+        }
+
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * Method to create executor with a virtual thread per task (Java 21+) or cached thread pool on older Java versions.<br>
+     * Jobs waiting for memory block their threads, virtual threads make the waiting cheap.<br>
+     * @return executor of the jobs
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Method to submit clustering job.<br>
+     * The admission thread waits until the estimated memory of the job is free and only then admits the next job.<br>
+     * Job with estimated memory greater than the whole budget runs alone.<br>
+     * If the executor rejects the admitted job, e.g. after close, its memory is released and the future completes<br>
+     * with RejectedExecutionException.<br>
+     * @param engine engine with parameters of the algorithm
+     * @param points list of points with identifiers 0..n-1
+     * @return future list of result clusters
+     */
+    public CompletableFuture<List<Cluster>> submit(ChameleonEngine engine, List<Point> points) {
+        boolean offHeap = engine.getConfig().getStorageMode() == StorageMode.OFF_HEAP;
+        Semaphore budget = offHeap ? directMemory : memory;
+        int requiredMegabytes = (int) Math.min(
+                (engine.estimateMemory(points.size()) + BYTES_PER_MEGABYTE - 1) / BYTES_PER_MEGABYTE,
+                offHeap ? directMemoryBudgetMegabytes : memoryBudgetMegabytes);
+
+        // The job releases the memory when it finishes, a rejected job can not do it
+        Executor admittedJobExecutor = job -> {
+            try {
+                executor.execute(job);
+            } catch (RejectedExecutionException e) {
+                budget.release(requiredMegabytes);
+                throw e;
+            }
+        };
+
+        return CompletableFuture.runAsync(() -> budget.acquireUninterruptibly(requiredMegabytes), admission)
+                .thenApplyAsync(v -> {
+                    try {
+                        return engine.cluster(points);
+                    } finally {
+                        budget.release(requiredMegabytes);
+                    }
+                }, admittedJobExecutor);
+    }
+
+    /**
+     * Method to get heap memory of the budget which is not reserved by running jobs
+     * @return free memory in megabytes
+     */
+    public int getFreeMemoryMegabytes() {
+        return memory.availablePermits();
+    }
+
+    /**
+     * Method to get direct memory of the budget which is not reserved by running OFF_HEAP jobs
+     * @return free direct memory in megabytes
+     */
+    public int getFreeDirectMemoryMegabytes() {
+        return directMemory.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        admission.shutdown();
+        executor.shutdown();
+    }
+}
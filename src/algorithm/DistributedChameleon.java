@@ -0,0 +1,164 @@
+package algorithm;
+
+import helpers.CsvParser;
+import model.Cluster;
+import model.Point;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Coordinator of the multi-process mode of the Chameleon algorithm.<br>
+ * The complete graph and k-nn graph are computed by KnnWorker processes, each for a range of points,<br>
+ * and streamed to the coordinator over loopback sockets. The second and the third part of the algorithm<br>
+ * are performed by the coordinator. Workers read points from the same input file as the coordinator.<br>
+ */
+public class DistributedChameleon {
+
+    private static final int ACCEPT_TIMEOUT_MS = 60000; // Maximal time of waiting for the worker connection
+
+    private int k; // Number of neighbours for the first part of the algorithm (k-nn algorithm)
+    private int initNrOfClusters; // Expected number of clusters after the second part of the algorithm
+    private int resultNrOfClusters; // Expected number of clusters at the end of the algorithm
+    private String inputFilePath; // Path to the input .csv file shared by the coordinator and workers
+    private int nrOfWorkers; // Number of worker processes
+
+    /**
+     * DistributedChameleon object constructor
+     * @param k Number of neighbours for the first part of the algorithm (k-nn algorithm)
+     * @param initNrOfClusters Expected number of clusters after the second part of the algorithm
+     * @param resultNrOfClusters Expected number of clusters at the end of the algorithm
+     * @param inputFilePath Path to the input .csv file shared by the coordinator and workers
+     * @param nrOfWorkers Number of worker processes
+     */
+    public DistributedChameleon(int k, int initNrOfClusters, int resultNrOfClusters, String inputFilePath, int nrOfWorkers) {
+        this.k = k;
+        this.initNrOfClusters = initNrOfClusters;
+        this.resultNrOfClusters = resultNrOfClusters;
+        this.inputFilePath = inputFilePath;
+        this.nrOfWorkers = nrOfWorkers;
+    }
+
+    /**
+     * Combiner method of the multi-process algorithm<br>
+     * 1. - launch worker processes on the local machine, each for a range of points<br>
+     *    - receive rows of the graph from workers and assemble the complete graph and k-nn graph<br>
+     *    - initialise entry clusters<br>
+     * 2. and 3. - the same as in ChameleonAlgorithm<br>
+     *
+     * @return list of clusters after all three parts of the algorithm
+     * @throws IOException
+     */
+    public List<Cluster> run() throws IOException {
+        List<Point> points = new ArrayList<>();
+        new CsvParser().forEachPoint(inputFilePath, points::add);
+        ChameleonAlgorithm chameleonAlgorithm = new ChameleonAlgorithm(k, initNrOfClusters, resultNrOfClusters, points);
+
+        List<Process> workers = new ArrayList<>();
+        try (ServerSocket serverSocket = new ServerSocket(0, nrOfWorkers, InetAddress.getLoopbackAddress())) {
+            serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MS);
+            int nrOfPoints = points.size();
+            for (int i = 0; i < nrOfWorkers; i++) {
+                workers.add(launchWorker(serverSocket.getLocalPort(),
+                        i * nrOfPoints / nrOfWorkers, (i + 1) * nrOfPoints / nrOfWorkers));
+            }
+            receiveGraphRows(serverSocket, chameleonAlgorithm, nrOfPoints);
+            for (Process worker : workers) {
+                if (worker.waitFor() != 0) {
+                    throw new IOException("Worker finished with exit code " + worker.exitValue());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for workers", e);
+        } finally {
+            workers.forEach(Process::destroy);
+        }
+
+        chameleonAlgorithm.runFirstPartFromGraphRows();
+        chameleonAlgorithm.runSecondPart();
+        return chameleonAlgorithm.runThirdPart();
+    }
+
+    /**
+     * Method to launch worker process with the same classpath as the coordinator
+     * @param port port of the coordinator
+     * @param from index of the first point (inclusive)
+     * @param to index of the last point (exclusive)
+     * @return worker process
+     * @throws IOException
+     */
+    private Process launchWorker(int port, int from, int to) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), KnnWorker.class.getName(),
+                InetAddress.getLoopbackAddress().getHostAddress(), String.valueOf(port), inputFilePath,
+                String.valueOf(k), String.valueOf(from), String.valueOf(to))
+                .inheritIO()
+                .start();
+    }
+
+    /**
+     * Method to accept connections of all workers and read rows of the graph concurrently
+     * @param serverSocket coordinator socket
+     * @param chameleonAlgorithm algorithm to which the rows are set
+     * @param nrOfPoints number of points
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void receiveGraphRows(ServerSocket serverSocket, ChameleonAlgorithm chameleonAlgorithm, int nrOfPoints)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(nrOfWorkers);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < nrOfWorkers; i++) {
+                Socket socket = serverSocket.accept();
+                results.add(executor.submit(() -> {
+                    readGraphRows(socket, chameleonAlgorithm, nrOfPoints);
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Could not read rows from worker", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Method to read rows of the graph from single worker
+     * @param socket connection with the worker
+     * @param chameleonAlgorithm algorithm to which the rows are set
+     * @param nrOfPoints number of points
+     * @throws IOException
+     */
+    private void readGraphRows(Socket socket, ChameleonAlgorithm chameleonAlgorithm, int nrOfPoints) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            int from = input.readInt();
+            int to = input.readInt();
+            for (int i = from; i < to; i++) {
+                int idx = input.readInt();
+                double minWeight = input.readDouble();
+                double[] weights = new double[nrOfPoints];
+                for (int j = 0; j < nrOfPoints; j++) {
+                    weights[j] = input.readDouble();
+                }
+                chameleonAlgorithm.setGraphRow(idx, weights, minWeight);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package algorithm;
+
+import model.Point;
+
+import java.util.List;
+
+/**
+ * Compact storage of the graphs - 32-bit float weights in primitive arrays.<br>
+ * The complete graph is symmetric, so only its upper triangle is kept - row i holds edges (i, j) for j > i.<br>
+ * The k-nn graph is a bit matrix, each row starts at a new word, so different rows can be modified concurrently.<br>
+ * Graphs of clusters are not kept, EC of the clusters is computed directly from the complete graph.<br>
+ * It needs about 2.1 bytes per pair of points instead of about 24 bytes of BoxedGraphStorage.<br>
+ */
+public class FloatGraphStorage implements GraphStorage {
+
+    private float[][] weights; // Upper triangle of the adjacency matrix of the complete graph
+    private long[][] knnEdges; // Bit matrix of the k-nn graph
+
+    /**
+     * FloatGraphStorage object constructor
+     * @param nrOfPoints number of vertices
+     */
+    public FloatGraphStorage(int nrOfPoints) {
+        this.weights = new float[nrOfPoints][];
+        this.knnEdges = new long[nrOfPoints][(nrOfPoints + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < nrOfPoints; i++) {
+            weights[i] = new float[nrOfPoints - i - 1];
+        }
+    }
+
+    @Override
+    public int size() {
+        return weights.length;
+    }
+
+    @Override
+    public double getWeight(int first, int second) {
+        return first < second ? weights[first][second - first - 1] : weights[second][first - second - 1];
+    }
+
+    @Override
+    public void setWeight(int first, int second, double weight) {
+        if (first < second) {
+            weights[first][second - first - 1] = (float) weight;
+        } else {
+            weights[second][first - second - 1] = (float) weight;
+        }
+    }
+
+    @Override
+    public boolean isKnnEdge(int first, int second) {
+        return (knnEdges[first][second >>> 6] & (1L << second)) != 0;
+    }
+
+    @Override
+    public void addKnnEdge(int first, int second) {
+        knnEdges[first][second >>> 6] |= 1L << second;
+    }
+
+    @Override
+    public void removeKnnEdge(int first, int second) {
+        knnEdges[first][second >>> 6] &= ~(1L << second);
+    }
+
+    @Override
+    public Double[][] createSubgraph(List<Point> subgraphPoints) {
+        return null;
+    }
+}
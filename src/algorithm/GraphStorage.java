@@ -0,0 +1,76 @@
+package algorithm;
+
+import model.Point;
+
+import java.util.List;
+
+/**
+ * Storage of the complete graph and of the k-nn graph of ChameleonAlgorithm.<br>
+ * Vertices are identified by indexes of the points 0..n-1. The complete graph is undirected,<br>
+ * the k-nn graph is directed until ChameleonAlgorithm makes it undirected.<br>
+ * Edges of the k-nn graph have the same weights as edges of the complete graph.<br>
+ * Storage which holds resources outside of the heap releases them on close.<br>
+ */
+public interface GraphStorage extends AutoCloseable {
+
+    /**
+     * Method to get number of vertices
+     * @return number of vertices
+     */
+    int size();
+
+    /**
+     * Method to get weight of the edge of the complete graph
+     * @param first index of the first vertex
+     * @param second index of the second vertex, different from the first one
+     * @return weight of the edge
+     */
+    double getWeight(int first, int second);
+
+    /**
+     * Method to set weight of the edge of the complete graph in both directions.<br>
+     * Edges of different pairs of vertices can be set concurrently.<br>
+     * @param first index of the first vertex
+     * @param second index of the second vertex, different from the first one
+     * @param weight weight of the edge
+     */
+    void setWeight(int first, int second, double weight);
+
+    /**
+     * Method to check if the k-nn graph contains the edge from the first vertex to the second one
+     * @param first index of the first vertex
+     * @param second index of the second vertex
+     * @return true if the edge is in the k-nn graph
+     */
+    boolean isKnnEdge(int first, int second);
+
+    /**
+     * Method to add the edge from the first vertex to the second one to the k-nn graph.<br>
+     * Edges from different vertices can be added concurrently.<br>
+     * @param first index of the first vertex
+     * @param second index of the second vertex, different from the first one
+     */
+    void addKnnEdge(int first, int second);
+
+    /**
+     * Method to remove the edge from the first vertex to the second one from the k-nn graph
+     * @param first index of the first vertex
+     * @param second index of the second vertex
+     */
+    void removeKnnEdge(int first, int second);
+
+    /**
+     * Method to create subgraph (with given list of points) of the complete graph for Cluster.setGraph
+     * @param subgraphPoints list of point that should be connected into a subgraph
+     * @return Adjacency matrix - new graph created from the list of the points,
+     * or null if the storage does not keep graphs of clusters - then only EC of the cluster is set
+     */
+    Double[][] createSubgraph(List<Point> subgraphPoints);
+
+    /**
+     * Method to release resources of the storage, the storage can not be used after it
+     */
+    @Override
+    default void close() {
+    }
+}
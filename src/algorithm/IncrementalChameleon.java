@@ -0,0 +1,482 @@
+package algorithm;
+
+import calculators.CoordinatesCalculator;
+import helpers.KdTree;
+import model.Cluster;
+import model.Point;
+
+import java.util.*;
+
+
+/**
+ * Online mode of the Chameleon algorithm.<br>
+ * It takes clusters produced by {@link ChameleonAlgorithm} and assigns new points to them without full recompute.<br>
+ * Clusters updated by this class keep only their EC aggregate - the dense graph of points is not rebuilt.<br>
+ * Sum of weights between the point and the cluster is estimated from its k nearest neighbours:<br>
+ * weights to the neighbours in the cluster are exact, each other point of the cluster is counted with the weight<br>
+ * of the centroid of the cluster, but not greater than the weight of the farthest neighbour - other points are not closer.<br>
+ * Insertion of the point costs O(k log n) - KdTree rebuilds its unbalanced subtrees, so points added in one area<br>
+ * do not make a chain. Split of the cluster costs O(m log m) for m points of the cluster,<br>
+ * it is amortized over at least a quarter of maxClusterSize insertions which have to happen before the next split.<br>
+ */
+public class IncrementalChameleon {
+
+    private static final double MAX_MERGED_FILL = 0.75; // Part of maxClusterSize up to which the split part can be merged
+
+    private int k; // Number of neighbours used to assign new point to the cluster
+    private int maxClusterSize; // Cluster that grows above this size is split and locally merged again
+    private List<Cluster> clusters; // List of result clusters
+    private KdTree index; // Index of all clustered points
+    private Map<Integer, Cluster> pointsClusters = new HashMap<>(); // Map (point id, cluster of the point)
+    private Map<Cluster, ClusterAggregates> clustersAggregates = new IdentityHashMap<>(); // Aggregates of each cluster
+    private Map<Point, List<Point>> coincidentPoints = new IdentityHashMap<>(); // Map (indexed point, inserted points with its coordinates)
+    private int nextId; // Identifier of the next inserted point
+
+    /**
+     * Aggregates of the cluster updated with each inserted point
+     */
+    private static class ClusterAggregates {
+        private final double[] vectorsSum = new double[3]; // Sum of unit vectors of the points (multiplied by their weights)
+        private final Map<String, Integer> namesCounts = new HashMap<>(); // Map (original cluster name, number of points)
+
+        private ClusterAggregates(List<Point> points) {
+            points.forEach(this::add);
+        }
+
+        private void add(Point point) {
+            double[] unitVector = CoordinatesCalculator.convertToUnitVector(point.getLatitude(), point.getLongitude());
+            for (int axis = 0; axis < vectorsSum.length; axis++) {
+                vectorsSum[axis] += point.getWeight() * unitVector[axis];
+            }
+            namesCounts.merge(point.getOriginalCluster(), point.getWeight(), Integer::sum);
+        }
+    }
+
+    /**
+     * IncrementalChameleon object constructor.<br>
+     * Clusters of the caller are copied, not modified. Points of the cluster with the same coordinates,<br>
+     * e.g. expanded by PointDeduplicator, are handled as inserted coincident points - only the first one is indexed.<br>
+     * @param k Number of neighbours used to assign new point to the cluster
+     * @param maxClusterSize Cluster that grows above this size is split and locally merged again
+     * @param clusters List of clusters returned by the ChameleonAlgorithm
+     */
+    public IncrementalChameleon(int k, int maxClusterSize, List<Cluster> clusters) {
+        this.k = k;
+        this.maxClusterSize = maxClusterSize;
+        this.clusters = new ArrayList<>(clusters.size());
+
+        List<Point> allPoints = new ArrayList<>();
+        for (Cluster inputCluster : clusters) {
+            // Own the list of points - lists created by partition are views of a shared list
+            Cluster cluster = new Cluster();
+            cluster.setPoints(new ArrayList<>(inputCluster.getPoints()));
+            cluster.setName(inputCluster.getName());
+            cluster.setEC(inputCluster.getEC());
+            this.clusters.add(cluster);
+            clustersAggregates.put(cluster, new ClusterAggregates(cluster.getPoints()));
+
+            // Map ([latitude, longitude], indexed point with these coordinates)
+            Map<List<Double>, Point> indexedPoints = new HashMap<>();
+            for (Point point : cluster.getPoints()) {
+                pointsClusters.put(point.getId(), cluster);
+                Point indexedPoint = indexedPoints.putIfAbsent(Arrays.asList(point.getLatitude(), point.getLongitude()), point);
+                if (indexedPoint == null) {
+                    allPoints.add(point);
+                } else {
+                    coincidentPoints.computeIfAbsent(indexedPoint, p -> new ArrayList<>()).add(point);
+                }
+            }
+        }
+        this.nextId = pointsClusters.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        this.index = new KdTree(allPoints);
+    }
+
+    /**
+     * Method to insert new points into existing clusters.<br>
+     * For each point:<br>
+     * 1. - find k nearest neighbours of the point in the index<br>
+     * 2. - assign the point to the cluster with the greatest sum of weights (1/distance) to these neighbours<br>
+     * 3. - update EC of the cluster with the estimated sum of weights between the new point and points of the cluster<br>
+     * 4. - if the cluster exceeds maxClusterSize, split it and merge one of the parts with the best neighbouring cluster<br>
+     * New points get identifiers following the greatest identifier of clustered points.<br>
+     * Point with the same coordinates as a clustered point joins its cluster, but it is not added to the index.<br>
+     *
+     * @param newPoints points to insert, created the same way as in CsvParser
+     * @return list of clusters after insertion
+     */
+    public List<Cluster> insert(List<Point> newPoints) {
+        for (Point point : newPoints) {
+            point.setId(nextId++);
+            insertPoint(point);
+        }
+
+        return clusters;
+    }
+
+    /**
+     * Method to insert single point
+     * @param point point to insert
+     */
+    private void insertPoint(Point point) {
+        List<Point> neighbours = index.nearest(point, k);
+        if (!neighbours.isEmpty() && CoordinatesCalculator.getDistance(point, neighbours.get(0)) == 0) {
+            mergeCoincidentPoint(point, neighbours);
+            return;
+        }
+
+        // Sum of weights between the point and its neighbours in each cluster
+        Map<Cluster, Double> clustersWeights = new IdentityHashMap<>();
+        for (Point neighbour : neighbours) {
+            clustersWeights.merge(pointsClusters.get(neighbour.getId()), getWeight(point, neighbour), Double::sum);
+        }
+
+        Cluster cluster;
+        if (clustersWeights.isEmpty()) {
+            cluster = new Cluster();
+            cluster.setPoints(new ArrayList<>());
+            clusters.add(cluster);
+            clustersAggregates.put(cluster, new ClusterAggregates(cluster.getPoints()));
+        } else {
+            cluster = clustersWeights.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .get()
+                    .getKey();
+        }
+
+        // Neighbours of the point in the cluster
+        List<Point> clusterNeighbours = new ArrayList<>();
+        for (Point neighbour : neighbours) {
+            if (pointsClusters.get(neighbour.getId()) == cluster) {
+                clusterNeighbours.add(neighbour);
+            }
+        }
+        ClusterAggregates aggregates = clustersAggregates.get(cluster);
+        double weightsSum = estimateWeightsSum(point, clusterNeighbours,
+                neighbours.isEmpty() ? null : neighbours.get(neighbours.size() - 1),
+                cluster.getWeight(), aggregates.vectorsSum);
+
+        cluster.getPoints().add(point);
+        addToAggregates(cluster, point, weightsSum);
+        pointsClusters.put(point.getId(), cluster);
+        index.insert(point);
+
+        if (cluster.getWeight() > maxClusterSize) {
+            resplitCluster(cluster, clustersWeights.keySet());
+        }
+    }
+
+    /**
+     * Method to add the point to the cluster of the clustered point with the same coordinates - distance 0 gives infinite weight.<br>
+     * As in PointDeduplicator the clustered point represents both of them in the weights: the new point is added<br>
+     * to the cluster, but not to the index, and weights are computed between the indexed points only.<br>
+     * @param point point to insert
+     * @param neighbours nearest neighbours of the point, the first one has the same coordinates
+     */
+    private void mergeCoincidentPoint(Point point, List<Point> neighbours) {
+        Point representative = neighbours.get(0);
+        Cluster cluster = pointsClusters.get(representative.getId());
+
+        // Weights to the points with the same coordinates are not counted, as between points of one representative
+        List<Point> clusterNeighbours = new ArrayList<>();
+        Set<Cluster> neighbourClusters = Collections.newSetFromMap(new IdentityHashMap<>());
+        int coincidentWeight = 0;
+        for (Point neighbour : neighbours) {
+            neighbourClusters.add(pointsClusters.get(neighbour.getId()));
+            if (CoordinatesCalculator.getDistance(point, neighbour) == 0) {
+                coincidentWeight += pointsClusters.get(neighbour.getId()) == cluster ? getRepresentedWeight(neighbour) : 0;
+            } else if (pointsClusters.get(neighbour.getId()) == cluster) {
+                clusterNeighbours.add(neighbour);
+            }
+        }
+        Point farthestNeighbour = neighbours.get(neighbours.size() - 1);
+        double weightsSum = estimateWeightsSum(point, clusterNeighbours,
+                CoordinatesCalculator.getDistance(point, farthestNeighbour) == 0 ? null : farthestNeighbour,
+                cluster.getWeight() - coincidentWeight, clustersAggregates.get(cluster).vectorsSum);
+
+        cluster.getPoints().add(point);
+        addToAggregates(cluster, point, weightsSum);
+        pointsClusters.put(point.getId(), cluster);
+        coincidentPoints.computeIfAbsent(representative, p -> new ArrayList<>()).add(point);
+
+        if (cluster.getWeight() > maxClusterSize) {
+            resplitCluster(cluster, neighbourClusters);
+        }
+    }
+
+    /**
+     * Method to compute weight of the indexed point together with the inserted points with its coordinates
+     * @param point indexed point
+     * @return number of original points represented by the point
+     */
+    private int getRepresentedWeight(Point point) {
+        List<Point> coincident = coincidentPoints.get(point);
+        return coincident == null ? point.getWeight()
+                : point.getWeight() + coincident.stream().mapToInt(Point::getWeight).sum();
+    }
+
+    /**
+     * Method to get the indexed points of the list - points which are not merged into a point with the same coordinates
+     * @param points points of the cluster
+     * @return indexed points
+     */
+    private List<Point> getIndexedPoints(List<Point> points) {
+        Set<Point> coincident = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Point point : points) {
+            coincident.addAll(coincidentPoints.getOrDefault(point, Collections.emptyList()));
+        }
+        List<Point> indexedPoints = new ArrayList<>(points.size() - coincident.size());
+        for (Point point : points) {
+            if (!coincident.contains(point)) {
+                indexedPoints.add(point);
+            }
+        }
+
+        return indexedPoints;
+    }
+
+    /**
+     * Method to add the weight of the point to the EC and aggregates of the cluster and update the name of the cluster
+     * @param cluster cluster of the point
+     * @param point inserted point
+     * @param weightsSum estimated sum of weights between the point and the other points of the cluster
+     */
+    private void addToAggregates(Cluster cluster, Point point, double weightsSum) {
+        ClusterAggregates aggregates = clustersAggregates.get(cluster);
+        // EC is the sum of weights divided by the number of points
+        int nrOfPoints = cluster.getWeight();
+        cluster.setEC((cluster.getEC() * nrOfPoints + point.getWeight() * weightsSum) / (nrOfPoints + point.getWeight()));
+        cluster.setWeight(nrOfPoints + point.getWeight());
+        aggregates.add(point);
+        // Name of the cluster is the most common original cluster name
+        String name = point.getOriginalCluster();
+        if (nrOfPoints == 0 || aggregates.namesCounts.get(name)
+                > aggregates.namesCounts.getOrDefault(cluster.getName(), 0)) {
+            cluster.setName(name);
+        }
+    }
+
+    /**
+     * Method to estimate sum of weights between the point and all points of the cluster.<br>
+     * Weights to the points with the same coordinates are not counted, as between points of one representative.<br>
+     * @param point point outside of the cluster
+     * @param clusterNeighbours nearest neighbours of the point in the cluster
+     * @param farthestNeighbour farthest of the nearest neighbours of the point in the whole searched set, null if there are no neighbours
+     * @param clusterWeight number of points of the cluster
+     * @param clusterVectorsSum sum of unit vectors of the points of the cluster
+     * @return estimated sum of weights
+     */
+    private double estimateWeightsSum(Point point, List<Point> clusterNeighbours, Point farthestNeighbour,
+                                      int clusterWeight, double[] clusterVectorsSum) {
+        double weightsSum = 0.0;
+        int nrOfNeighbours = 0;
+        for (Point neighbour : clusterNeighbours) {
+            int neighbourWeight = getRepresentedWeight(neighbour);
+            if (CoordinatesCalculator.getDistance(point, neighbour) > 0) {
+                weightsSum += neighbourWeight * getWeight(point, neighbour);
+            }
+            nrOfNeighbours += neighbourWeight;
+        }
+
+        int nrOfOtherPoints = clusterWeight - nrOfNeighbours;
+        if (nrOfOtherPoints > 0) {
+            // Other points are not closer than the farthest neighbour
+            double otherWeight = farthestNeighbour == null || CoordinatesCalculator.getDistance(point, farthestNeighbour) == 0
+                    ? Double.MAX_VALUE : getWeight(point, farthestNeighbour);
+            Point centroid = toPoint(clusterVectorsSum);
+            if (centroid != null && CoordinatesCalculator.getDistance(point, centroid) > 0) {
+                otherWeight = Math.min(otherWeight, getWeight(point, centroid));
+            }
+            // Without distance to the farthest neighbour and to the centroid the other points are not estimated
+            if (otherWeight < Double.MAX_VALUE) {
+                weightsSum += nrOfOtherPoints * otherWeight;
+            }
+        }
+
+        return weightsSum;
+    }
+
+    /**
+     * Method to estimate sum of weights between points of two lists - or between pairs of points of one list.<br>
+     * Only the indexed points are used, each of them with the weight of the inserted points with its coordinates.<br>
+     * @param firstPoints points for which neighbours are searched
+     * @param secondPoints points of the other cluster, the same list for the cluster itself
+     * @return estimated sum of weights
+     */
+    private double estimateWeightsSum(List<Point> firstPoints, List<Point> secondPoints) {
+        boolean sameCluster = firstPoints == secondPoints;
+        List<Point> secondIndexedPoints = getIndexedPoints(secondPoints);
+        List<Point> firstIndexedPoints = sameCluster ? secondIndexedPoints : getIndexedPoints(firstPoints);
+        KdTree secondIndex = new KdTree(secondIndexedPoints);
+        double[] secondVectorsSum = new ClusterAggregates(secondPoints).vectorsSum;
+        int secondWeight = secondPoints.stream().mapToInt(Point::getWeight).sum();
+
+        double weightsSum = 0.0;
+        for (Point point : firstIndexedPoints) {
+            List<Point> neighbours = secondIndex.nearest(point, sameCluster ? k + 1 : k);
+            if (sameCluster) {
+                neighbours.removeIf(p -> p == point);
+            }
+            int pointWeight = getRepresentedWeight(point);
+            weightsSum += pointWeight * estimateWeightsSum(point, neighbours,
+                    neighbours.isEmpty() ? null : neighbours.get(neighbours.size() - 1),
+                    sameCluster ? secondWeight - pointWeight : secondWeight, secondVectorsSum);
+        }
+
+        // Each pair of points of one list is counted twice
+        return sameCluster ? weightsSum / 2 : weightsSum;
+    }
+
+    /**
+     * Method to split too big cluster and merge one of its parts with the neighbouring cluster.<br>
+     * The parts are not merged with each other - it would restore the split cluster.<br>
+     * If there are no neighbouring clusters small enough, both parts stay as separate clusters.<br>
+     * @param cluster cluster to split
+     * @param neighbourClusters clusters of the nearest neighbours of the inserted point
+     */
+    private void resplitCluster(Cluster cluster, Set<Cluster> neighbourClusters) {
+        List<Point> indexedPoints = getIndexedPoints(cluster.getPoints());
+        if (indexedPoints.size() < 2) {
+            // All points have the same coordinates
+            return;
+        }
+
+        List<Cluster> twoClusters = new ArrayList<>();
+        for (List<Point> part : ChameleonAlgorithm.bisectPoints(indexedPoints)) {
+            // Inserted points with the same coordinates go to the part of their indexed point
+            List<Point> points = new ArrayList<>(part);
+            for (Point point : part) {
+                points.addAll(coincidentPoints.getOrDefault(point, Collections.emptyList()));
+            }
+            twoClusters.add(createCluster(points));
+        }
+        clusters.removeIf(c -> c == cluster);
+        clustersAggregates.remove(cluster);
+        clusters.addAll(twoClusters);
+
+        Cluster bestFirst = null;
+        Cluster bestSecond = null;
+        double bestConnectionMetrics = Double.MIN_VALUE;
+        for (Cluster first : twoClusters) {
+            for (Cluster second : neighbourClusters) {
+                // Merged cluster has to stay far enough below maxClusterSize
+                if (second == cluster
+                        || first.getWeight() + second.getWeight() > MAX_MERGED_FILL * maxClusterSize) {
+                    continue;
+                }
+                double connectionMetrics = ChameleonAlgorithm.computeConnectionMetrics(first, second, computeEC(first, second));
+                if (connectionMetrics > bestConnectionMetrics) {
+                    bestConnectionMetrics = connectionMetrics;
+                    bestFirst = first;
+                    bestSecond = second;
+                }
+            }
+        }
+
+        if (bestFirst == null) {
+            twoClusters.forEach(c -> c.getPoints().forEach(p -> pointsClusters.put(p.getId(), c)));
+            return;
+        }
+
+        for (Cluster twoCluster : twoClusters) {
+            if (twoCluster != bestFirst) {
+                twoCluster.getPoints().forEach(p -> pointsClusters.put(p.getId(), twoCluster));
+            }
+        }
+        Cluster resultCluster = mergeTwoClusters(bestFirst, bestSecond);
+        Cluster first = bestFirst;
+        Cluster second = bestSecond;
+        clusters.removeIf(c -> c == first || c == second);
+        clustersAggregates.remove(first);
+        clustersAggregates.remove(second);
+        clusters.add(resultCluster);
+        resultCluster.getPoints().forEach(p -> pointsClusters.put(p.getId(), resultCluster));
+    }
+
+    /**
+     * Method to create cluster with EC estimated from distances between points and their nearest neighbours
+     * @param points points of the cluster
+     * @return new cluster
+     */
+    private Cluster createCluster(List<Point> points) {
+        Cluster cluster = new Cluster();
+        cluster.setPoints(points);
+        cluster.setEC(estimateWeightsSum(points, points) / cluster.getWeight());
+        clustersAggregates.put(cluster, new ClusterAggregates(points));
+
+        return cluster;
+    }
+
+    /**
+     * Method to merge two clusters, EC of the result is computed from the EC aggregates of both clusters
+     * @param firstCluster first cluster to merge
+     * @param secondCluster second cluster to merge
+     * @return merged cluster that contains points from firstCluster and secondCluster
+     */
+    private Cluster mergeTwoClusters(Cluster firstCluster, Cluster secondCluster) {
+        List<Point> firstPoints = firstCluster.getPoints();
+        List<Point> secondPoints = secondCluster.getPoints();
+        double weightsSum = firstCluster.getEC() * firstCluster.getWeight() + secondCluster.getEC() * secondCluster.getWeight()
+                + estimateWeightsSum(firstPoints, secondPoints);
+
+        List<Point> points = new ArrayList<>(firstPoints.size() + secondPoints.size());
+        points.addAll(firstPoints);
+        points.addAll(secondPoints);
+
+        Cluster resultCluster = new Cluster();
+        resultCluster.setPoints(points);
+        resultCluster.setEC(weightsSum / resultCluster.getWeight());
+        clustersAggregates.put(resultCluster, new ClusterAggregates(points));
+
+        return resultCluster;
+    }
+
+    /**
+     * Method to estimate inter - connectivity between two clusters - the minimal weight of edge between their points.<br>
+     * The farthest pair of points is approximated in linear time: the point of the first cluster farthest from<br>
+     * the centroid of the second one, the point of the second cluster farthest from it and again the point<br>
+     * of the first cluster farthest from the last one.<br>
+     * @param firstCluster first cluster for which EC will be determine
+     * @param secondCluster second cluster for which EC will be determine
+     * @return estimated minimal weight of edge between two points from different clusters
+     */
+    private double computeEC(Cluster firstCluster, Cluster secondCluster) {
+        Point secondCentroid = toPoint(clustersAggregates.get(secondCluster).vectorsSum);
+        Point first = getFarthestPoint(firstCluster.getPoints(),
+                secondCentroid == null ? secondCluster.getPoints().get(0) : secondCentroid);
+        Point second = getFarthestPoint(secondCluster.getPoints(), first);
+        first = getFarthestPoint(firstCluster.getPoints(), second);
+
+        return getWeight(first, second);
+    }
+
+    private static Point getFarthestPoint(List<Point> points, Point point) {
+        return points.stream()
+                .max(Comparator.comparingDouble(p -> CoordinatesCalculator.getDistance(p, point)))
+                .get();
+    }
+
+    /**
+     * Method to convert sum of unit vectors to the point in their mean direction
+     * @param vectorsSum sum of unit vectors
+     * @return point with coordinates of the mean direction, null if the sum is zero
+     */
+    private static Point toPoint(double[] vectorsSum) {
+        double x = vectorsSum[0];
+        double y = vectorsSum[1];
+        double z = vectorsSum[2];
+        if (x == 0 && y == 0 && z == 0) {
+            return null;
+        }
+
+        return new Point(Math.toDegrees(Math.atan2(z, Math.sqrt(x * x + y * y))), Math.toDegrees(Math.atan2(y, x)));
+    }
+
+    private static double getWeight(Point first, Point second) {
+        // weight = 1 / distance
+        return 1.0 / CoordinatesCalculator.getDistance(first, second);
+    }
+
+    public List<Cluster> getClusters() {
+        return clusters;
+    }
+}
@@ -0,0 +1,75 @@
+package algorithm;
+
+import calculators.PointsDistanceCalculator;
+import helpers.CsvParser;
+import model.Point;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Worker process of the distributed first part of the algorithm.<br>
+ * It computes rows of the complete graph and k-nn thresholds for a range of points<br>
+ * and streams them to the coordinator - DistributedChameleon.<br>
+ * Message format: from, to (int), then for each point: idx (int), minWeight (double), weights (n doubles).<br>
+ */
+public class KnnWorker {
+
+    /**
+     * Arguments: host, port, inputFilePath, k, from (inclusive), to (exclusive)
+     */
+    public static void main(String[] args) {
+        if (args.length != 6) {
+            System.out.println("Arguments: host, port, inputFilePath, k, from, to");
+            System.exit(1);
+        }
+
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        String inputFilePath = args[2];
+        int k = Integer.parseInt(args[3]);
+        int from = Integer.parseInt(args[4]);
+        int to = Integer.parseInt(args[5]);
+
+        try {
+            List<Point> points = new ArrayList<>();
+            new CsvParser().forEachPoint(inputFilePath, points::add);
+            run(host, port, points, k, from, to);
+        } catch (IOException e) {
+            System.out.println("Worker " + from + "-" + to + " failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Method to compute rows of the graph for the range of points and send them to the coordinator
+     * @param host coordinator host
+     * @param port coordinator port
+     * @param points list of all points for clustering
+     * @param k number of neighbours for the k-nn algorithm
+     * @param from index of the first point (inclusive)
+     * @param to index of the last point (exclusive)
+     * @throws IOException
+     */
+    public static void run(String host, int port, List<Point> points, int k, int from, int to) throws IOException {
+        try (Socket socket = new Socket(host, port);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            output.writeInt(from);
+            output.writeInt(to);
+            PointsDistanceCalculator distanceCalculator = new PointsDistanceCalculator(points);
+            for (int i = from; i < to; i++) {
+                double[] weights = ChameleonAlgorithm.computeGraphRow(distanceCalculator, i);
+                output.writeInt(i);
+                output.writeDouble(ChameleonAlgorithm.computeMinWeight(weights, i, k));
+                for (double weight : weights) {
+                    output.writeDouble(weight);
+                }
+            }
+        }
+    }
+}
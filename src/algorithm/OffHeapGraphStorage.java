@@ -0,0 +1,163 @@
+package algorithm;
+
+import model.Point;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Off-heap storage of the graphs - direct buffers outside of the garbage collected heap.<br>
+ * The complete graph is symmetric, so only its upper triangle is kept, weights are 64-bit doubles,<br>
+ * so results are the same as with BoxedGraphStorage. The k-nn graph is a bit matrix, each row starts at a new word.<br>
+ * Graphs of clusters are not kept, EC of the clusters is computed directly from the complete graph.<br>
+ * Buffers are split into chunks of 1 GB - a single direct buffer can not be greater than 2 GB.<br>
+ * Memory is released explicitly by close, the storage can not be used after it.<br>
+ * The whole storage has to fit in the direct memory limit of the JVM (-XX:MaxDirectMemorySize).<br>
+ */
+public class OffHeapGraphStorage implements GraphStorage {
+
+    private static final int CHUNK_SHIFT = 30; // Chunks of 2^30 bytes, multiple of the size of each entry
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final int nrOfPoints; // Number of vertices
+    private final int knnRowWords; // Number of words of a single row of the k-nn graph
+    private ByteBuffer[] weights; // Upper triangle of the adjacency matrix of the complete graph, row after row
+    private ByteBuffer[] knnEdges; // Bit matrix of the k-nn graph, row after row
+
+    /**
+     * OffHeapGraphStorage object constructor
+     * @param nrOfPoints number of vertices
+     */
+    public OffHeapGraphStorage(int nrOfPoints) {
+        this.nrOfPoints = nrOfPoints;
+        this.knnRowWords = (nrOfPoints + Long.SIZE - 1) / Long.SIZE;
+        this.weights = allocate((long) nrOfPoints * (nrOfPoints - 1) / 2 * Double.BYTES);
+        this.knnEdges = allocate((long) nrOfPoints * knnRowWords * Long.BYTES);
+    }
+
+    /**
+     * Method to allocate zeroed direct buffers of the given total size
+     * @param nrOfBytes total size in bytes
+     * @return chunks of the buffer
+     */
+    private static ByteBuffer[] allocate(long nrOfBytes) {
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((nrOfBytes + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long chunkSize = Math.min(nrOfBytes - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT);
+            chunks[i] = ByteBuffer.allocateDirect((int) chunkSize).order(ByteOrder.nativeOrder());
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Method to compute position of the weight of the edge in the upper triangle
+     * @param first index of the first vertex
+     * @param second index of the second vertex, different from the first one
+     * @return position in bytes
+     */
+    private long getWeightPosition(int first, int second) {
+        long row = Math.min(first, second);
+        long column = Math.max(first, second);
+        // Rows before the row have nrOfPoints - 1, nrOfPoints - 2, ... entries
+        long rowStart = row * (2L * nrOfPoints - row - 1) / 2;
+
+        return (rowStart + column - row - 1) * Double.BYTES;
+    }
+
+    private long getKnnWordPosition(int first, int second) {
+        return ((long) first * knnRowWords + (second >>> 6)) * Long.BYTES;
+    }
+
+    @Override
+    public int size() {
+        return nrOfPoints;
+    }
+
+    @Override
+    public double getWeight(int first, int second) {
+        long position = getWeightPosition(first, second);
+        return weights[(int) (position >>> CHUNK_SHIFT)].getDouble((int) (position & CHUNK_MASK));
+    }
+
+    @Override
+    public void setWeight(int first, int second, double weight) {
+        long position = getWeightPosition(first, second);
+        weights[(int) (position >>> CHUNK_SHIFT)].putDouble((int) (position & CHUNK_MASK), weight);
+    }
+
+    @Override
+    public boolean isKnnEdge(int first, int second) {
+        long position = getKnnWordPosition(first, second);
+        long word = knnEdges[(int) (position >>> CHUNK_SHIFT)].getLong((int) (position & CHUNK_MASK));
+        return (word & (1L << second)) != 0;
+    }
+
+    @Override
+    public void addKnnEdge(int first, int second) {
+        long position = getKnnWordPosition(first, second);
+        ByteBuffer chunk = knnEdges[(int) (position >>> CHUNK_SHIFT)];
+        int index = (int) (position & CHUNK_MASK);
+        chunk.putLong(index, chunk.getLong(index) | (1L << second));
+    }
+
+    @Override
+    public void removeKnnEdge(int first, int second) {
+        long position = getKnnWordPosition(first, second);
+        ByteBuffer chunk = knnEdges[(int) (position >>> CHUNK_SHIFT)];
+        int index = (int) (position & CHUNK_MASK);
+        chunk.putLong(index, chunk.getLong(index) & ~(1L << second));
+    }
+
+    @Override
+    public Double[][] createSubgraph(List<Point> subgraphPoints) {
+        return null;
+    }
+
+    /**
+     * Method to release the buffers without waiting for the garbage collector.<br>
+     * Calling it again has no effect.<br>
+     */
+    @Override
+    public void close() {
+        if (weights == null) {
+            return;
+        }
+        ByteBuffer[][] buffers = {weights, knnEdges};
+        weights = null;
+        knnEdges = null;
+        for (ByteBuffer[] chunks : buffers) {
+            for (ByteBuffer chunk : chunks) {
+                release(chunk);
+            }
+        }
+    }
+
+    /**
+     * Method to free memory of the direct buffer - Unsafe.invokeCleaner on Java 9+ or the cleaner of the buffer on Java 8.<br>
+     * If none of them is accessible, memory is freed when the buffer is garbage collected.<br>
+     * @param buffer direct buffer
+     */
+    private static void release(ByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+            unsafeField.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafeField.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8 - no invokeCleaner
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Left to the garbage collector
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package algorithm;
+
+import calculators.ContingencyMatrix;
+import helpers.CsvParser;
+import helpers.PointDeduplicator;
+import model.Cluster;
+import model.Point;
+import model.PrecisionReport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validation of the compact storage - the same points are clustered with double and with float weights<br>
+ * and cluster assignments of both runs are compared.<br>
+ */
+public class PrecisionValidator {
+
+    /**
+     * Arguments: inputFilePath, k, initNrOfClusters, resultNrOfClusters
+     */
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.out.println("Arguments: inputFilePath, k, initNrOfClusters, resultNrOfClusters");
+            System.exit(1);
+        }
+
+        List<Point> points = new ArrayList<>();
+        try {
+            new CsvParser().forEachPoint(args[0], points::add);
+        } catch (IOException e) {
+            System.out.println("Could not read input file: " + args[0]);
+            System.exit(1);
+        }
+
+        // Collapse points with identical coordinates - distance 0 gives infinite weights
+        List<Point> representatives = new PointDeduplicator(0).deduplicate(points);
+        ChameleonConfig config = new ChameleonConfig(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]));
+        System.out.println(validate(config, representatives));
+    }
+
+    /**
+     * Method to cluster the points with double and with float storage of the graphs and compare the results
+     * @param config parameters of the algorithm, storage mode of the config is not used
+     * @param points list of points with identifiers 0..n-1
+     * @return comparison of both runs
+     */
+    public static PrecisionReport validate(ChameleonConfig config, List<Point> points) {
+        ChameleonEngine referenceEngine = new ChameleonEngine(withStorageMode(config, StorageMode.DOUBLE));
+        ChameleonEngine compactEngine = new ChameleonEngine(withStorageMode(config, StorageMode.FLOAT));
+
+        long start = System.nanoTime();
+        List<Cluster> referenceClusters = referenceEngine.cluster(points);
+        long referenceTimeMs = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        List<Cluster> compactClusters = compactEngine.cluster(points);
+        long compactTimeMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Reference cluster of each point is the label of the point in compact clusters
+        String[] referenceLabels = new String[points.size()];
+        for (int i = 0; i < referenceClusters.size(); i++) {
+            for (Point point : referenceClusters.get(i).getPoints()) {
+                referenceLabels[point.getId()] = String.valueOf(i);
+            }
+        }
+        ContingencyMatrix contingencyMatrix = new ContingencyMatrix(compactClusters, p -> referenceLabels[p.getId()]);
+
+        // Points of each compact cluster outside of its best matching reference cluster
+        int nrOfChangedPoints = 0;
+        for (int i = 0; i < compactClusters.size(); i++) {
+            int bestCount = 0;
+            for (int j = 0; j < referenceClusters.size(); j++) {
+                bestCount = Math.max(bestCount, contingencyMatrix.getCount(i, String.valueOf(j)));
+            }
+            nrOfChangedPoints += contingencyMatrix.getClusterSize(i) - bestCount;
+        }
+
+        return new PrecisionReport(points.size(), referenceClusters.size(), compactClusters.size(), nrOfChangedPoints,
+                contingencyMatrix.getAdjustedRandIndex(), referenceTimeMs, compactTimeMs,
+                referenceEngine.estimateMemory(points.size()), compactEngine.estimateMemory(points.size()));
+    }
+
+    private static ChameleonConfig withStorageMode(ChameleonConfig config, StorageMode storageMode) {
+        return new ChameleonConfig(config.getK(), config.getInitNrOfClusters(), config.getResultNrOfClusters(),
+                config.getNrOfPartitionThreads(), storageMode);
+    }
+}
@@ -0,0 +1,352 @@
+package algorithm;
+
+import calculators.ContingencyMatrix;
+import helpers.CsvParser;
+import helpers.DatasetGenerator;
+import helpers.PointDeduplicator;
+import model.Cluster;
+import model.Point;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * Scaling and equivalence harness of the execution modes of the Chameleon algorithm.<br>
+ * For each size synthetic dataset is generated with DatasetGenerator and clustered by the reference path<br>
+ * (ChameleonAlgorithm.run) and by every optimized mode. Time and peak heap usage of each run are recorded<br>
+ * and clusters of each mode are compared with the reference clusters. Exact modes have to give the same clusters,<br>
+ * approximate modes are reported with the number of changed points only: the FLOAT storage may differ by rounding<br>
+ * of weights, TiledChameleon clusters tiles separately, IncrementalChameleon inserts the second half of the points<br>
+ * into clusters of the first half and the deduplicated mode merges points closer than DEDUPLICATION_TOLERANCE_KM.<br>
+ * Runs which do not fit in the memory are skipped.<br>
+ * Results are printed and written to scaling_results.csv in the output directory.<br>
+ */
+public class ScalingHarness {
+
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+    private static final int INIT_CLUSTERS_PER_CLUSTER = 4; // initNrOfClusters as a multiple of resultNrOfClusters
+    private static final Set<String> APPROXIMATE_MODES = new HashSet<>(Arrays.asList("float", "tiled", "incremental", "deduplicated"));
+    private static final int TILES_PER_SIDE = 4; // Number of tiles of TiledChameleon along the longer side of the dataset
+    private static final double HALO_PER_TILE = 0.1; // Width of the halo of TiledChameleon as a part of the tile size
+    private static final int MAX_TILE_POINTS = 2000; // Tiles of TiledChameleon with more points are bisected
+    private static final int MAX_CLUSTER_SIZE_PER_CLUSTER = 2; // maxClusterSize of IncrementalChameleon as a multiple of the average cluster size
+    private static final double DEDUPLICATION_TOLERANCE_KM = 1.0; // Tolerance of the deduplicated mode
+
+    private String outputDirectory; // Directory of the generated datasets and of the results
+    private int nrOfClusters; // Number of generated clusters and resultNrOfClusters
+    private int k; // Number of neighbours for the first part of the algorithm (k-nn algorithm)
+    private long seed; // Seed of the dataset generator
+    private int nrOfWorkers; // Number of processes of DistributedChameleon and threads of the concurrent partition
+
+    /**
+     * Arguments: outputDirectory, sizes (comma separated), nrOfClusters, k, seed
+     */
+    public static void main(String[] args) {
+        if (args.length != 5) {
+            System.out.println("Arguments: outputDirectory, sizes (comma separated), nrOfClusters, k, seed");
+            System.exit(1);
+        }
+
+        ScalingHarness harness = new ScalingHarness(args[0], Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                Long.parseLong(args[4]), Runtime.getRuntime().availableProcessors());
+        List<Integer> sizes = Arrays.stream(args[1].split(","))
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        try {
+            if (!harness.run(sizes)) {
+                System.out.println("Some modes gave different clusters than the reference path");
+                System.exit(2);
+            }
+        } catch (IOException e) {
+            System.out.println("Harness failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * ScalingHarness object constructor
+     * @param outputDirectory directory of the generated datasets and of the results
+     * @param nrOfClusters number of generated clusters and resultNrOfClusters
+     * @param k number of neighbours for the first part of the algorithm (k-nn algorithm)
+     * @param seed seed of the dataset generator
+     * @param nrOfWorkers number of processes of DistributedChameleon and threads of the concurrent partition
+     */
+    public ScalingHarness(String outputDirectory, int nrOfClusters, int k, long seed, int nrOfWorkers) {
+        this.outputDirectory = outputDirectory;
+        this.nrOfClusters = nrOfClusters;
+        this.k = k;
+        this.seed = seed;
+        this.nrOfWorkers = nrOfWorkers;
+    }
+
+    /**
+     * Method to run all modes for each size of the dataset
+     * @param sizes numbers of generated points
+     * @return true if all exact modes gave the same clusters as the reference path
+     * @throws IOException
+     */
+    public boolean run(List<Integer> sizes) throws IOException {
+        new File(outputDirectory).mkdirs();
+        boolean equivalent = true;
+        try (PrintWriter results = new PrintWriter(new FileWriter(new File(outputDirectory, "scaling_results.csv")))) {
+            report(results, "points;mode;timeMs;peakHeapMB;clusters;changedPoints;ARI");
+            for (int size : sizes) {
+                equivalent &= runSize(size, results);
+            }
+        }
+
+        return equivalent;
+    }
+
+    /**
+     * Method to generate dataset of the given size and run all modes on it
+     * @param size number of generated points
+     * @param results writer of the results
+     * @return true if all exact modes gave the same clusters as the reference path
+     * @throws IOException
+     */
+    private boolean runSize(int size, PrintWriter results) throws IOException {
+        File datasetFile = new File(outputDirectory, "synthetic_" + size + "_" + nrOfClusters + "_" + seed + ".csv");
+        if (!datasetFile.exists()) {
+            new DatasetGenerator(nrOfClusters, seed).generate(datasetFile.getPath(), size);
+        }
+        List<Point> points = new ArrayList<>();
+        new CsvParser().forEachPoint(datasetFile.getPath(), points::add);
+
+        // Collapse points with identical coordinates - distance 0 gives infinite weights
+        List<Point> representatives = new PointDeduplicator(0).deduplicate(points);
+        int n = representatives.size();
+        // Workers of DistributedChameleon read the same unique points from the file
+        File uniqueFile = new File(outputDirectory, "unique_" + datasetFile.getName());
+        new CsvParser().writePoints(uniqueFile.getPath(), representatives);
+
+        int initNrOfClusters = Math.min(INIT_CLUSTERS_PER_CLUSTER * nrOfClusters, n);
+        long maxMemory = Runtime.getRuntime().maxMemory();
+
+        Run reference = null;
+        if (StorageMode.DOUBLE.estimateMemory(n) < maxMemory) {
+            reference = measure("reference", () ->
+                    new ChameleonAlgorithm(k, initNrOfClusters, nrOfClusters, representatives).run());
+            report(results, reference, null);
+        } else {
+            report(results, points.size() + ";reference;skipped - does not fit in the heap");
+        }
+
+        Map<String, Callable<List<Cluster>>> modes = new LinkedHashMap<>();
+        if (StorageMode.DOUBLE.estimateMemory(n) < maxMemory) {
+            modes.put("engine", () -> new ChameleonEngine(
+                    new ChameleonConfig(k, initNrOfClusters, nrOfClusters)).cluster(representatives));
+            modes.put("concurrentPartition", () -> new ChameleonEngine(
+                    new ChameleonConfig(k, initNrOfClusters, nrOfClusters, nrOfWorkers)).cluster(representatives));
+            modes.put("distributed", () -> new DistributedChameleon(k, initNrOfClusters, nrOfClusters,
+                    uniqueFile.getPath(), nrOfWorkers).run());
+            modes.put("incremental", () -> runIncremental(representatives, initNrOfClusters));
+            modes.put("deduplicated", () -> runDeduplicated(representatives, initNrOfClusters));
+        }
+        if (StorageMode.OFF_HEAP.estimateMemory(n) < maxMemory) {
+            modes.put("offHeap", () -> new ChameleonEngine(new ChameleonConfig(k, initNrOfClusters, nrOfClusters,
+                    1, StorageMode.OFF_HEAP)).cluster(representatives));
+        }
+        if (StorageMode.FLOAT.estimateMemory(n) < maxMemory) {
+            modes.put("float", () -> new ChameleonEngine(new ChameleonConfig(k, initNrOfClusters, nrOfClusters,
+                    1, StorageMode.FLOAT)).cluster(representatives));
+        }
+        // Out-of-core mode - memory is limited by MAX_TILE_POINTS
+        modes.put("tiled", () -> runTiled(representatives, uniqueFile, initNrOfClusters));
+
+        boolean equivalent = true;
+        for (Map.Entry<String, Callable<List<Cluster>>> mode : modes.entrySet()) {
+            Run run = measure(mode.getKey(), mode.getValue());
+            report(results, run, reference);
+            if (reference != null && !APPROXIMATE_MODES.contains(mode.getKey())) {
+                equivalent &= getNrOfChangedPoints(run.clusters, reference.clusters) == 0
+                        && run.clusters.size() == reference.clusters.size();
+            }
+        }
+
+        return equivalent;
+    }
+
+    /**
+     * Method to run TiledChameleon on the file with unique points and read its clusters from the assignments file
+     * @param points unique points, used for the size of the tiles
+     * @param uniqueFile file with unique points
+     * @param initNrOfClusters initial number of clusters
+     * @return clusters of points with identifiers of the unique points
+     * @throws IOException
+     */
+    private List<Cluster> runTiled(List<Point> points, File uniqueFile, int initNrOfClusters) throws IOException {
+        double rangeX = points.stream().mapToDouble(Point::getX).max().orElse(0) - points.stream().mapToDouble(Point::getX).min().orElse(0);
+        double rangeY = points.stream().mapToDouble(Point::getY).max().orElse(0) - points.stream().mapToDouble(Point::getY).min().orElse(0);
+        double tileSize = Math.max(Math.max(rangeX, rangeY) / TILES_PER_SIDE, Double.MIN_VALUE);
+        int initClusterSize = (int) Math.ceil((double) points.size() / initNrOfClusters);
+        File workDirectory = new File(outputDirectory, "tiled_" + uniqueFile.getName());
+
+        new TiledChameleon(k, initClusterSize, nrOfClusters, tileSize, HALO_PER_TILE * tileSize, MAX_TILE_POINTS,
+                workDirectory).run(uniqueFile.getPath());
+
+        // Assignments - id;state_name;lat;lng;cluster;weight
+        Map<String, List<Point>> clustersPoints = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(new File(workDirectory, "assignments.csv")))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] cells = line.split(";");
+                Point point = new Point(Integer.parseInt(cells[0]), Double.parseDouble(cells[2]), Double.parseDouble(cells[3]));
+                point.setOriginalCluster(cells[1]);
+                point.setWeight(Integer.parseInt(cells[5]));
+                clustersPoints.computeIfAbsent(cells[4], c -> new ArrayList<>()).add(point);
+            }
+        }
+
+        List<Cluster> clusters = new ArrayList<>(clustersPoints.size());
+        for (List<Point> clusterPoints : clustersPoints.values()) {
+            Cluster cluster = new Cluster();
+            cluster.setPoints(clusterPoints);
+            clusters.add(cluster);
+        }
+
+        return clusters;
+    }
+
+    /**
+     * Method to cluster the first half of the points and insert the second half with IncrementalChameleon
+     * @param points unique points with identifiers 0..n-1
+     * @param initNrOfClusters initial number of clusters
+     * @return clusters of all points
+     */
+    private List<Cluster> runIncremental(List<Point> points, int initNrOfClusters) {
+        int nrOfBasePoints = Math.max(points.size() / 2, Math.min(k + 1, points.size()));
+        List<Point> basePoints = new ArrayList<>(points.subList(0, nrOfBasePoints));
+        List<Cluster> clusters = new ChameleonEngine(new ChameleonConfig(k, Math.min(initNrOfClusters, nrOfBasePoints),
+                nrOfClusters)).cluster(basePoints);
+
+        // Inserted points get the following identifiers - the same as in the list of points
+        List<Point> newPoints = new ArrayList<>();
+        for (Point point : points.subList(nrOfBasePoints, points.size())) {
+            Point newPoint = new Point(point.getLatitude(), point.getLongitude());
+            newPoint.setOriginalCluster(point.getOriginalCluster());
+            newPoint.setX(point.getX());
+            newPoint.setY(point.getY());
+            newPoint.setWeight(point.getWeight());
+            newPoints.add(newPoint);
+        }
+        int maxClusterSize = MAX_CLUSTER_SIZE_PER_CLUSTER * (int) Math.ceil((double) points.size() / nrOfClusters);
+
+        return new IncrementalChameleon(k, maxClusterSize, clusters).insert(newPoints);
+    }
+
+    /**
+     * Method to merge points closer than DEDUPLICATION_TOLERANCE_KM, cluster the representatives and expand them again
+     * @param points unique points with identifiers 0..n-1
+     * @param initNrOfClusters initial number of clusters
+     * @return clusters of all points
+     */
+    private List<Cluster> runDeduplicated(List<Point> points, int initNrOfClusters) {
+        PointDeduplicator pointDeduplicator = new PointDeduplicator(DEDUPLICATION_TOLERANCE_KM);
+        List<Point> representatives = pointDeduplicator.deduplicate(points);
+        List<Cluster> clusters = new ChameleonEngine(new ChameleonConfig(k, Math.min(initNrOfClusters, representatives.size()),
+                nrOfClusters)).cluster(representatives);
+
+        return pointDeduplicator.expand(clusters);
+    }
+
+    /**
+     * Single measured run of the algorithm
+     */
+    private static class Run {
+        private final String mode; // Name of the execution mode
+        private final int nrOfPoints; // Number of clustered points of the dataset - sum of weights of the representatives
+        private final List<Cluster> clusters; // Result clusters
+        private final long timeMs; // Time of the run
+        private final long peakHeapBytes; // Peak usage of the heap during the run
+
+        private Run(String mode, List<Cluster> clusters, long timeMs, long peakHeapBytes) {
+            this.mode = mode;
+            this.nrOfPoints = clusters.stream().flatMap(c -> c.getPoints().stream()).mapToInt(Point::getWeight).sum();
+            this.clusters = clusters;
+            this.timeMs = timeMs;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+    }
+
+    /**
+     * Method to run the mode and measure its time and peak heap usage - sum of peak usages of heap memory pools
+     * @param mode name of the execution mode
+     * @param algorithm run of the algorithm
+     * @return measured run
+     * @throws IOException
+     */
+    private Run measure(String mode, Callable<List<Cluster>> algorithm) throws IOException {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        List<Cluster> clusters;
+        try {
+            clusters = algorithm.call();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Mode " + mode + " failed", e);
+        }
+        long timeMs = (System.nanoTime() - start) / 1_000_000;
+        long peakHeapBytes = heapPools.stream()
+                .mapToLong(p -> p.getPeakUsage().getUsed())
+                .sum();
+
+        return new Run(mode, clusters, timeMs, peakHeapBytes);
+    }
+
+    /**
+     * Method to count points of each cluster outside of its best matching reference cluster,<br>
+     * each representative is counted as its weight points of the dataset.<br>
+     * @param clusters clusters of the compared mode
+     * @param referenceClusters clusters of the reference path
+     * @return number of changed points, 0 if both clusterings have the same clusters
+     */
+    private static int getNrOfChangedPoints(List<Cluster> clusters, List<Cluster> referenceClusters) {
+        // Representatives have identifiers 0..n-1
+        int[] referenceLabels = new int[referenceClusters.stream().mapToInt(c -> c.getPoints().size()).sum()];
+        for (int i = 0; i < referenceClusters.size(); i++) {
+            for (Point point : referenceClusters.get(i).getPoints()) {
+                referenceLabels[point.getId()] = i;
+            }
+        }
+
+        int nrOfChangedPoints = 0;
+        for (Cluster cluster : clusters) {
+            if (cluster.getPoints().isEmpty()) {
+                continue;
+            }
+            Map<Integer, Integer> referenceCounts = cluster.getPoints().stream()
+                    .collect(Collectors.groupingBy(p -> referenceLabels[p.getId()], Collectors.summingInt(Point::getWeight)));
+            nrOfChangedPoints += cluster.getPoints().stream().mapToInt(Point::getWeight).sum() - Collections.max(referenceCounts.values());
+        }
+
+        return nrOfChangedPoints;
+    }
+
+    private void report(PrintWriter results, Run run, Run reference) {
+        String changedPoints = reference == null ? "-"
+                : String.valueOf(getNrOfChangedPoints(run.clusters, reference.clusters));
+        // Agreement with the generated clusters
+        double adjustedRandIndex = new ContingencyMatrix(run.clusters).getAdjustedRandIndex();
+        report(results, run.nrOfPoints + ";" + run.mode + ";" + run.timeMs + ";" + run.peakHeapBytes / BYTES_PER_MEGABYTE
+                + ";" + run.clusters.size() + ";" + changedPoints + ";" + adjustedRandIndex);
+    }
+
+    private void report(PrintWriter results, String line) {
+        System.out.println(line);
+        results.println(line);
+        results.flush();
+    }
+}
@@ -0,0 +1,42 @@
+package algorithm;
+
+/**
+ * Storage of the graphs used by ChameleonAlgorithm
+ */
+public enum StorageMode {
+
+    DOUBLE(24), // Reference storage - references in graph, knnGraph and cluster graphs plus shared Double weights
+    FLOAT(3), // Compact storage - 32-bit weights in primitive arrays, graphs of clusters are not kept
+    OFF_HEAP(5); // Off-heap storage - 64-bit weights in direct buffers, graphs of clusters are not kept
+
+    private final long bytesPerPointsPair; // Estimated memory usage per pair of points
+
+    StorageMode(long bytesPerPointsPair) {
+        this.bytesPerPointsPair = bytesPerPointsPair;
+    }
+
+    /**
+     * Method to create empty storage of the graphs
+     * @param nrOfPoints number of points for clustering
+     * @return storage of the graphs
+     */
+    public GraphStorage createStorage(int nrOfPoints) {
+        switch (this) {
+            case FLOAT:
+                return new FloatGraphStorage(nrOfPoints);
+            case OFF_HEAP:
+                return new OffHeapGraphStorage(nrOfPoints);
+            default:
+                return new BoxedGraphStorage(nrOfPoints);
+        }
+    }
+
+    /**
+     * Method to estimate memory needed by the graphs of given number of points
+     * @param nrOfPoints number of points
+     * @return estimated number of bytes
+     */
+    public long estimateMemory(int nrOfPoints) {
+        return bytesPerPointsPair * nrOfPoints * nrOfPoints;
+    }
+}
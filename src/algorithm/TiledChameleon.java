@@ -0,0 +1,499 @@
+package algorithm;
+
+import calculators.CoordinatesCalculator;
+import helpers.CsvParser;
+import helpers.KdTree;
+import helpers.PointDeduplicator;
+import model.Cluster;
+import model.ClusterSummary;
+import model.Point;
+
+import java.io.*;
+import java.util.*;
+
+
+/**
+ * Out-of-core mode of the Chameleon algorithm for datasets that do not fit in memory.<br>
+ * Points are spilled to the disk in geographic tiles (Mercator X/Y), only one tile is kept in memory at the time.<br>
+ * The third part of the algorithm is performed on the summaries of the tile clusters.<br>
+ */
+public class TiledChameleon {
+
+    private static final String SEPARATOR = ";";
+    private static final int NR_OF_NEIGHBOUR_SUMMARIES = 8; // Number of nearest summaries considered for merging
+    private static final double MIN_DISTANCE_KM = 0.001; // Lower bound of distance between summaries, avoids division by 0
+    private static final int MAX_OPEN_TILE_WRITERS = 64; // Maximal number of tile files open at the same time
+
+    private int k; // Number of neighbours for the first part of the algorithm (k-nn algorithm)
+    private int initClusterSize; // Expected number of points in the cluster after the second part of the algorithm
+    private int resultNrOfClusters; // Expected number of clusters at the end of the algorithm
+    private double tileSize; // Width and height of the tile in Mercator units
+    private double haloSize; // Width of the halo - points from neighbouring tiles clustered together with the tile
+    private int maxTilePoints; // Tiles with more points are bisected before clustering
+    private File workDirectory; // Directory for spilled tiles, clusters and result assignments
+
+    private List<ClusterSummary> summaries = new ArrayList<>(); // Summaries of tile clusters and merged clusters
+    private int[] parents; // Summary into which the given summary was merged
+
+    /**
+     * TiledChameleon object constructor
+     * @param k Number of neighbours for the first part of the algorithm (k-nn algorithm)
+     * @param initClusterSize Expected number of points in the cluster after the second part of the algorithm
+     * @param resultNrOfClusters Expected number of clusters at the end of the algorithm
+     * @param tileSize Width and height of the tile in Mercator units
+     * @param haloSize Width of the halo - points from neighbouring tiles clustered together with the tile
+     * @param maxTilePoints Tiles with more points are bisected before clustering
+     * @param workDirectory Directory for spilled tiles, clusters and result assignments
+     */
+    public TiledChameleon(int k, int initClusterSize, int resultNrOfClusters, double tileSize, double haloSize,
+                          int maxTilePoints, File workDirectory) {
+        this.k = k;
+        this.initClusterSize = initClusterSize;
+        this.resultNrOfClusters = resultNrOfClusters;
+        this.tileSize = tileSize;
+        this.haloSize = haloSize;
+        this.maxTilePoints = maxTilePoints;
+        this.workDirectory = workDirectory;
+    }
+
+    /**
+     * Combiner method of the tiled algorithm<br>
+     * 1. - stream points from the input file and spill them to tile files, points near the border are copied to the halo of neighbouring tiles<br>
+     * 2. - for each tile perform the first and the second part of the algorithm, spill clusters of tile points and keep their summaries<br>
+     * 3. - until the resultNrOfClusters is achieved merge the best connected neighbouring summaries<br>
+     * 4. - write assignments of points to result clusters to the assignments.csv file in the work directory<br>
+     *
+     * @param inputFilePath path to the input .csv file
+     * @return list of summaries of result clusters
+     * @throws IOException
+     */
+    public List<ClusterSummary> run(String inputFilePath) throws IOException {
+        new File(workDirectory, "tiles").mkdirs();
+        new File(workDirectory, "clusters").mkdirs();
+
+        Set<String> tiles = spillTiles(inputFilePath);
+        for (String tile : tiles) {
+            clusterTile(tile);
+        }
+        List<ClusterSummary> resultSummaries = mergeSummaries();
+        writeAssignments(tiles);
+
+        return resultSummaries;
+    }
+
+    /**
+     * Method to spill points to tile files
+     * @param inputFilePath path to the input .csv file
+     * @return names of created tiles
+     * @throws IOException
+     */
+    private Set<String> spillTiles(String inputFilePath) throws IOException {
+        try (TileWriters writers = new TileWriters()) {
+            new CsvParser().forEachPoint(inputFilePath, point -> {
+                long tileX = (long) Math.floor(point.getX() / tileSize);
+                long tileY = (long) Math.floor(point.getY() / tileSize);
+                for (long dx = -1; dx <= 1; dx++) {
+                    for (long dy = -1; dy <= 1; dy++) {
+                        boolean halo = dx != 0 || dy != 0;
+                        if (halo && !isInHalo(point, tileX + dx, tileY + dy)) {
+                            continue;
+                        }
+                        String tile = (tileX + dx) + "_" + (tileY + dy);
+                        writeLine(writers.get(tile), point, halo ? 1 : 0);
+                    }
+                }
+            });
+
+            return writers.tiles;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Method to check if the point lies in the halo of the tile
+     * @param point point to check
+     * @param tileX X index of the tile
+     * @param tileY Y index of the tile
+     * @return true if the distance between the point and the tile is not greater than haloSize
+     */
+    private boolean isInHalo(Point point, long tileX, long tileY) {
+        double distanceX = Math.max(Math.max(tileX * tileSize - point.getX(), point.getX() - (tileX + 1) * tileSize), 0);
+        double distanceY = Math.max(Math.max(tileY * tileSize - point.getY(), point.getY() - (tileY + 1) * tileSize), 0);
+        return distanceX <= haloSize && distanceY <= haloSize;
+    }
+
+    /**
+     * Writers of the tile files - at most MAX_OPEN_TILE_WRITERS files are open at the same time.<br>
+     * The least recently used writer is closed when another tile is written, it is opened again in append mode.<br>
+     */
+    private class TileWriters implements Closeable {
+        private final Set<String> tiles = new LinkedHashSet<>(); // Names of all created tiles in order of creation
+        private final Map<String, BufferedWriter> openWriters = new LinkedHashMap<>(16, 0.75f, true); // Open writers, the least recently used first
+
+        private BufferedWriter get(String tile) {
+            BufferedWriter writer = openWriters.get(tile);
+            if (writer != null) {
+                return writer;
+            }
+            try {
+                if (openWriters.size() >= MAX_OPEN_TILE_WRITERS) {
+                    Iterator<BufferedWriter> eldest = openWriters.values().iterator();
+                    BufferedWriter eldestWriter = eldest.next();
+                    eldest.remove();
+                    eldestWriter.close();
+                }
+                // The file is created for the first writer of the tile and appended by the next ones
+                writer = new BufferedWriter(new FileWriter(getTileFile("tiles", tile), !tiles.add(tile)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            openWriters.put(tile, writer);
+
+            return writer;
+        }
+
+        /**
+         * Method to close all open writers, exceptions of the next writers are suppressed by the first one
+         * @throws IOException
+         */
+        @Override
+        public void close() throws IOException {
+            IOException exception = null;
+            for (BufferedWriter writer : openWriters.values()) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    if (exception == null) {
+                        exception = e;
+                    } else {
+                        exception.addSuppressed(e);
+                    }
+                }
+            }
+            openWriters.clear();
+            if (exception != null) {
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * Method to perform the first and the second part of the algorithm for single tile.<br>
+     * Halo points take part in the clustering but they are removed from the clusters afterwards,<br>
+     * they belong to the clusters of their own tile.<br>
+     * @param tile name of the tile
+     * @throws IOException
+     */
+    private void clusterTile(String tile) throws IOException {
+        List<Point> tilePoints = new ArrayList<>();
+        Set<Integer> haloPoints = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(getTileFile("tiles", tile)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] cells = line.split(SEPARATOR);
+                Point point = readPoint(cells);
+                if ("1".equals(cells[4])) {
+                    haloPoints.add(point.getId());
+                }
+                tilePoints.add(point);
+            }
+        }
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(getTileFile("clusters", tile)))) {
+            for (List<Point> chunk : splitTile(tilePoints)) {
+                for (List<Point> clusterPoints : clusterChunk(chunk)) {
+                    List<Point> corePoints = new ArrayList<>();
+                    clusterPoints.stream()
+                            .filter(p -> !haloPoints.contains(p.getId()))
+                            .forEach(corePoints::add);
+                    if (corePoints.isEmpty()) {
+                        continue;
+                    }
+
+                    ClusterSummary summary = summarize(summaries.size(), corePoints);
+                    summaries.add(summary);
+                    for (Point point : corePoints) {
+                        writeLine(writer, point, summary.getId());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to bisect tile points until each part has at most maxTilePoints points
+     * @param tilePoints points of the tile
+     * @return list of parts of the tile
+     */
+    private List<List<Point>> splitTile(List<Point> tilePoints) {
+        if (tilePoints.size() <= maxTilePoints) {
+            return Collections.singletonList(tilePoints);
+        }
+        List<List<Point>> chunks = new ArrayList<>();
+        for (List<Point> part : ChameleonAlgorithm.bisectPoints(tilePoints)) {
+            chunks.addAll(splitTile(part));
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Method to perform the first and the second part of the algorithm for the part of the tile.<br>
+     * Points with identical coordinates are clustered as a single weighted representative - distance 0 gives infinite weights.<br>
+     * @param chunk points to cluster
+     * @return lists of points of the clusters
+     */
+    private List<List<Point>> clusterChunk(List<Point> chunk) {
+        // The algorithm uses point identifiers as indexes of the graph
+        List<Point> localPoints = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Point point = chunk.get(i);
+            Point localPoint = new Point(i, point.getLatitude(), point.getLongitude());
+            localPoint.setOriginalCluster(point.getOriginalCluster());
+            localPoint.setX(point.getX());
+            localPoint.setY(point.getY());
+            localPoint.setWeight(point.getWeight());
+            localPoints.add(localPoint);
+        }
+
+        PointDeduplicator pointDeduplicator = new PointDeduplicator(0);
+        List<Point> representatives = pointDeduplicator.deduplicate(localPoints);
+        if (representatives.size() <= k) {
+            return Collections.singletonList(chunk);
+        }
+
+        int chunkWeight = chunk.stream().mapToInt(Point::getWeight).sum();
+        int initNrOfClusters = Math.min((int) Math.ceil((double) chunkWeight / initClusterSize), representatives.size());
+        ChameleonAlgorithm chameleonAlgorithm = new ChameleonAlgorithm(k, initNrOfClusters, initNrOfClusters, representatives);
+        chameleonAlgorithm.runFirstPart();
+        List<Cluster> clusters = pointDeduplicator.expand(chameleonAlgorithm.runSecondPart());
+
+        List<List<Point>> clustersPoints = new ArrayList<>(clusters.size());
+        for (Cluster cluster : clusters) {
+            List<Point> clusterPoints = new ArrayList<>(cluster.getPoints().size());
+            cluster.getPoints().forEach(p -> clusterPoints.add(chunk.get(p.getId())));
+            clustersPoints.add(clusterPoints);
+        }
+
+        return clustersPoints;
+    }
+
+    /**
+     * Method to create summary of the cluster - its size, EC, centroid and radius.<br>
+     * Size and centroid count each point with its weight - the number of represented original points.<br>
+     * EC is computed for weighted representatives of points with identical coordinates, as in clusterChunk.<br>
+     * @param id identifier of the summary
+     * @param points points of the cluster
+     * @return summary of the cluster
+     */
+    private ClusterSummary summarize(int id, List<Point> points) {
+        double EC = ChameleonAlgorithm.computeInternalEC(new PointDeduplicator(0).deduplicate(points), (first, second) -> 1.0 / CoordinatesCalculator.getDistance(first, second));
+
+        int nrOfPoints = points.stream().mapToInt(Point::getWeight).sum();
+        Point centroid = new Point(
+                points.stream().mapToDouble(p -> p.getWeight() * p.getLatitude()).sum() / nrOfPoints,
+                points.stream().mapToDouble(p -> p.getWeight() * p.getLongitude()).sum() / nrOfPoints);
+        double radius = points.stream()
+                .mapToDouble(p -> CoordinatesCalculator.getDistance(centroid, p))
+                .max()
+                .getAsDouble();
+
+        return new ClusterSummary(id, nrOfPoints, EC,
+                centroid.getLatitude(), centroid.getLongitude(), radius);
+    }
+
+    /**
+     * Third part of the algorithm performed on the summaries.<br>
+     * Candidate pairs are the nearest summaries, the best pair is merged into a new summary<br>
+     * and the new summary becomes candidate pair with all neighbours of the merged ones.<br>
+     * @return list of summaries of result clusters
+     */
+    private List<ClusterSummary> mergeSummaries() {
+        int nrOfTileClusters = summaries.size();
+        parents = new int[Math.max(2 * nrOfTileClusters - 1, 0)];
+        List<Set<Integer>> neighbours = new ArrayList<>();
+        PriorityQueue<double[]> candidates = new PriorityQueue<>(
+                Comparator.comparingDouble((double[] c) -> c[2]).reversed());
+
+        List<Point> centroids = new ArrayList<>(nrOfTileClusters);
+        summaries.forEach(s -> centroids.add(s.getCentroid()));
+        KdTree index = new KdTree(centroids);
+        for (ClusterSummary summary : summaries) {
+            parents[summary.getId()] = summary.getId();
+            Set<Integer> summaryNeighbours = new HashSet<>();
+            index.nearest(summary.getCentroid(), NR_OF_NEIGHBOUR_SUMMARIES + 1).stream()
+                    .map(Point::getId)
+                    .filter(id -> id != summary.getId())
+                    .forEach(summaryNeighbours::add);
+            neighbours.add(summaryNeighbours);
+        }
+        // Make neighbourhood symmetric and create candidate pairs
+        for (int i = 0; i < nrOfTileClusters; i++) {
+            for (int j : neighbours.get(i)) {
+                neighbours.get(j).add(i);
+            }
+        }
+        for (int i = 0; i < nrOfTileClusters; i++) {
+            for (int j : neighbours.get(i)) {
+                if (i < j) {
+                    candidates.add(new double[]{i, j, computeConnectionMetrics(summaries.get(i), summaries.get(j))});
+                }
+            }
+        }
+
+        int nrOfClusters = nrOfTileClusters;
+        while (nrOfClusters > resultNrOfClusters && !candidates.isEmpty()) {
+            double[] candidate = candidates.poll();
+            int first = (int) candidate[0];
+            int second = (int) candidate[1];
+            // Skip pairs with already merged summaries
+            if (parents[first] != first || parents[second] != second) {
+                continue;
+            }
+
+            ClusterSummary merged = mergeTwoSummaries(summaries.get(first), summaries.get(second), summaries.size());
+            summaries.add(merged);
+            parents[merged.getId()] = merged.getId();
+            parents[first] = merged.getId();
+            parents[second] = merged.getId();
+            nrOfClusters--;
+
+            Set<Integer> mergedNeighbours = new HashSet<>();
+            neighbours.get(first).forEach(n -> mergedNeighbours.add(find(n)));
+            neighbours.get(second).forEach(n -> mergedNeighbours.add(find(n)));
+            mergedNeighbours.remove(merged.getId());
+            neighbours.add(mergedNeighbours);
+            for (int neighbour : mergedNeighbours) {
+                neighbours.get(neighbour).add(merged.getId());
+                candidates.add(new double[]{merged.getId(), neighbour,
+                        computeConnectionMetrics(merged, summaries.get(neighbour))});
+            }
+        }
+
+        List<ClusterSummary> resultSummaries = new ArrayList<>();
+        summaries.stream()
+                .filter(s -> parents[s.getId()] == s.getId())
+                .forEach(resultSummaries::add);
+
+        return resultSummaries;
+    }
+
+    /**
+     * Method to compute connection metrics between two summaries.<br>
+     * Inter - connectivity is estimated as 1 / (distance between centroids + radiuses) - the weight of the longest possible edge.<br>
+     * @param first first summary
+     * @param second second summary
+     * @return connection metrics - RI * RC
+     */
+    private double computeConnectionMetrics(ClusterSummary first, ClusterSummary second) {
+        double maxDistance = CoordinatesCalculator.getDistance(first.getCentroid(), second.getCentroid())
+                + first.getRadius() + second.getRadius();
+        double bothClustersEC = 1.0 / Math.max(maxDistance, MIN_DISTANCE_KM);
+
+        return ChameleonAlgorithm.computeConnectionMetrics(first.getNrOfPoints(), first.getEC(),
+                second.getNrOfPoints(), second.getEC(), bothClustersEC);
+    }
+
+    /**
+     * Method to merge two summaries.<br>
+     * Weights between points of different summaries are estimated with the mean distance - distance between centroids plus mean radius.<br>
+     * @param first first summary to merge
+     * @param second second summary to merge
+     * @param id identifier of the merged summary
+     * @return summary of the merged cluster
+     */
+    private ClusterSummary mergeTwoSummaries(ClusterSummary first, ClusterSummary second, int id) {
+        int nrOfPoints = first.getNrOfPoints() + second.getNrOfPoints();
+        double centroidsDistance = CoordinatesCalculator.getDistance(first.getCentroid(), second.getCentroid());
+        double meanDistance = Math.max(centroidsDistance + (first.getRadius() + second.getRadius()) / 2, MIN_DISTANCE_KM);
+        double weightsSum = first.getEC() * first.getNrOfPoints() + second.getEC() * second.getNrOfPoints()
+                + (double) first.getNrOfPoints() * second.getNrOfPoints() / meanDistance;
+
+        Point centroid = new Point(
+                (first.getLatitude() * first.getNrOfPoints() + second.getLatitude() * second.getNrOfPoints()) / nrOfPoints,
+                (first.getLongitude() * first.getNrOfPoints() + second.getLongitude() * second.getNrOfPoints()) / nrOfPoints);
+        double radius = Math.max(
+                CoordinatesCalculator.getDistance(centroid, first.getCentroid()) + first.getRadius(),
+                CoordinatesCalculator.getDistance(centroid, second.getCentroid()) + second.getRadius());
+
+        return new ClusterSummary(id, nrOfPoints, weightsSum / nrOfPoints,
+                centroid.getLatitude(), centroid.getLongitude(), radius);
+    }
+
+    /**
+     * Method to find the result summary into which the given summary was merged
+     * @param id identifier of the summary
+     * @return identifier of the result summary
+     */
+    private int find(int id) {
+        int root = id;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        // Path compression
+        while (parents[id] != root) {
+            int parent = parents[id];
+            parents[id] = root;
+            id = parent;
+        }
+
+        return root;
+    }
+
+    /**
+     * Method to write assignments of points to result clusters - id;state_name;lat;lng;cluster;weight
+     * @param tiles names of the tiles
+     * @throws IOException
+     */
+    private void writeAssignments(Set<String> tiles) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(workDirectory, "assignments.csv")))) {
+            writer.write("id;state_name;lat;lng;cluster;weight");
+            writer.newLine();
+            for (String tile : tiles) {
+                try (BufferedReader reader = new BufferedReader(new FileReader(getTileFile("clusters", tile)))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] cells = line.split(SEPARATOR);
+                        writeLine(writer, readPoint(cells), find(Integer.parseInt(cells[4])));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to read point from the line of tile or cluster file - id;state_name;lat;lng;value;weight
+     * @param cells cells of the line
+     * @return point with its weight
+     */
+    private Point readPoint(String[] cells) {
+        Point point = new Point(Integer.parseInt(cells[0]), Double.parseDouble(cells[2]), Double.parseDouble(cells[3]));
+        point.setOriginalCluster(cells[1]);
+        point.setWeight(Integer.parseInt(cells[5]));
+        point.setX(CoordinatesCalculator.convertLongitudeToX(point.getLongitude()));
+        point.setY(CoordinatesCalculator.convertLatitudeToY(point.getLatitude()));
+        return point;
+    }
+
+    /**
+     * Method to write point to tile, cluster or assignments file - id;state_name;lat;lng;value;weight
+     * @param writer writer of the file
+     * @param point point to write
+     * @param value halo flag in tile files, identifier of the cluster in cluster and assignments files
+     */
+    private void writeLine(BufferedWriter writer, Point point, int value) {
+        try {
+            writer.write(point.getId() + SEPARATOR + point.getOriginalCluster() + SEPARATOR
+                    + point.getLatitude() + SEPARATOR + point.getLongitude() + SEPARATOR + value
+                    + SEPARATOR + point.getWeight());
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private File getTileFile(String directory, String tile) {
+        return new File(new File(workDirectory, directory), "tile_" + tile + ".csv");
+    }
+}
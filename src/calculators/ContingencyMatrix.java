@@ -0,0 +1,187 @@
+package calculators;
+
+import model.Cluster;
+import model.Point;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public class ContingencyMatrix {
+
+    private static final String NO_LABEL = "\u0000"; // Column of points without original cluster name
+
+    private int[][] counts; // Number of points of each original cluster (column) in each result cluster (row)
+    private int[] clustersSizes; // Number of points in each result cluster - sums of rows
+    private int[] labelsSizes; // Number of points in each original cluster - sums of columns
+    private Map<String, Integer> labels = new ConcurrentHashMap<>(); // Map (originalClusterName, column index)
+    private int nrOfPoints; // Total number of points
+
+    /**
+     * ContingencyMatrix object constructor<br>
+     * Rows are counted concurrently - each cluster in a single pass over its points.<br>
+     * @param clusters list of clusters
+     */
+    public ContingencyMatrix(List<Cluster> clusters) {
+        this(clusters, Point::getOriginalCluster);
+    }
+
+    /**
+     * ContingencyMatrix object constructor with any labels of points, e.g. clusters of other clustering
+     * @param clusters list of clusters
+     * @param labelFunction function returning the label (column) of the point, null for points without label
+     */
+    public ContingencyMatrix(List<Cluster> clusters, Function<Point, String> labelFunction) {
+        AtomicInteger nrOfLabels = new AtomicInteger();
+        this.counts = new int[clusters.size()][];
+        IntStream.range(0, clusters.size()).parallel().forEach(i -> {
+            int[] row = new int[0];
+            for (Point point : clusters.get(i).getPoints()) {
+                String pointLabel = labelFunction.apply(point);
+                String originalClusterName = pointLabel == null ? NO_LABEL : pointLabel;
+                int label = labels.computeIfAbsent(originalClusterName, l -> nrOfLabels.getAndIncrement());
+                if (label >= row.length) {
+                    row = Arrays.copyOf(row, Math.max(2 * row.length, label + 1));
+                }
+                row[label]++;
+            }
+            counts[i] = row;
+        });
+
+        this.clustersSizes = new int[clusters.size()];
+        this.labelsSizes = new int[nrOfLabels.get()];
+        for (int i = 0; i < counts.length; i++) {
+            // Rows have the same length as the number of labels
+            counts[i] = Arrays.copyOf(counts[i], labelsSizes.length);
+            for (int j = 0; j < labelsSizes.length; j++) {
+                clustersSizes[i] += counts[i][j];
+                labelsSizes[j] += counts[i][j];
+            }
+            nrOfPoints += clustersSizes[i];
+        }
+    }
+
+    /**
+     * Method to get number of points of the original cluster in the result cluster
+     * @param cluster index of the result cluster
+     * @param originalClusterName name of the original cluster
+     * @return number of points
+     */
+    public int getCount(int cluster, String originalClusterName) {
+        Integer label = originalClusterName == null ? null : labels.get(originalClusterName);
+        return label == null ? 0 : counts[cluster][label];
+    }
+
+    /**
+     * Method to get number of original clusters with at least minOccurrence points in the result cluster
+     * @param cluster index of the result cluster
+     * @param minOccurrence minimal number of points
+     * @return number of original clusters
+     */
+    public int getNrOfLabels(int cluster, int minOccurrence) {
+        return (int) Arrays.stream(counts[cluster])
+                .filter(x -> x >= minOccurrence)
+                .count();
+    }
+
+    public int getClusterSize(int cluster) {
+        return clustersSizes[cluster];
+    }
+
+    public int getNrOfPoints() {
+        return nrOfPoints;
+    }
+
+    /**
+     * Method to calculate Adjusted Rand Index between result and original clusters<br>
+     * https://en.wikipedia.org/wiki/Rand_index#Adjusted_Rand_index<br>
+     * @return adjusted rand index, 1 for identical clusterings
+     */
+    public double getAdjustedRandIndex() {
+        if (nrOfPoints < 2) {
+            return 1.0;
+        }
+        double pairsSum = 0.0;
+        for (int[] row : counts) {
+            for (int count : row) {
+                pairsSum += pairs(count);
+            }
+        }
+        double clustersPairsSum = Arrays.stream(clustersSizes).mapToDouble(ContingencyMatrix::pairs).sum();
+        double labelsPairsSum = Arrays.stream(labelsSizes).mapToDouble(ContingencyMatrix::pairs).sum();
+
+        double expectedIndex = clustersPairsSum * labelsPairsSum / pairs(nrOfPoints);
+        double maxIndex = (clustersPairsSum + labelsPairsSum) / 2;
+        if (maxIndex == expectedIndex) {
+            return 1.0;
+        }
+
+        return (pairsSum - expectedIndex) / (maxIndex - expectedIndex);
+    }
+
+    /**
+     * Method to calculate Normalized Mutual Information between result and original clusters<br>
+     * Mutual information is normalized by the arithmetic mean of entropies of both clusterings.<br>
+     * https://en.wikipedia.org/wiki/Mutual_information#Normalized_variants<br>
+     * @return normalized mutual information, 1 for identical clusterings
+     */
+    public double getNormalizedMutualInformation() {
+        double mutualInformation = 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            for (int j = 0; j < labelsSizes.length; j++) {
+                if (counts[i][j] > 0) {
+                    mutualInformation += (double) counts[i][j] / nrOfPoints
+                            * Math.log((double) nrOfPoints * counts[i][j] / ((double) clustersSizes[i] * labelsSizes[j]));
+                }
+            }
+        }
+        double entropiesSum = entropy(clustersSizes) + entropy(labelsSizes);
+        if (entropiesSum == 0) {
+            return 1.0;
+        }
+
+        return 2 * mutualInformation / entropiesSum;
+    }
+
+    /**
+     * Method to calculate F-measure of clustering<br>
+     * For each original cluster it takes the best F1 score among result clusters, weighted by the size of the original cluster.<br>
+     * @return F-measure, 1 for identical clusterings
+     */
+    public double getFMeasure() {
+        double fMeasure = 0.0;
+        for (int j = 0; j < labelsSizes.length; j++) {
+            double bestF1 = 0.0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i][j] > 0) {
+                    double precision = (double) counts[i][j] / clustersSizes[i];
+                    double recall = (double) counts[i][j] / labelsSizes[j];
+                    bestF1 = Math.max(bestF1, 2 * precision * recall / (precision + recall));
+                }
+            }
+            fMeasure += (double) labelsSizes[j] / nrOfPoints * bestF1;
+        }
+
+        return fMeasure;
+    }
+
+    private double entropy(int[] sizes) {
+        double entropy = 0.0;
+        for (int size : sizes) {
+            if (size > 0) {
+                double probability = (double) size / nrOfPoints;
+                entropy -= probability * Math.log(probability);
+            }
+        }
+
+        return entropy;
+    }
+
+    private static double pairs(int count) {
+        return (double) count * (count - 1) / 2;
+    }
+}
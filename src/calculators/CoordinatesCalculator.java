@@ -7,7 +7,7 @@ import model.Point;
 public class CoordinatesCalculator {
 
     private final static double DEGREES_TO_RADIANS = Math.PI / 180.0;
-    private final static double EARTH_RADIUS_KM = 6371.0;
+    public final static double EARTH_RADIUS_KM = 6371.0;
 
     // Constants used for Mercator projection
     private final static double MAP_WIDTH = 2000.0;
@@ -22,18 +22,39 @@ public class CoordinatesCalculator {
      * @return distance between two points
      */
     public static double getDistance(Point first, Point second) {
-        double degreesLongitude = (second.getLongitude() - first.getLongitude()) * DEGREES_TO_RADIANS;
-        double degreesLatitude = (second.getLatitude() - first.getLatitude()) * DEGREES_TO_RADIANS;
+        return getDistance(first.getLatitude(), first.getLongitude(), getCosLatitude(first.getLatitude()),
+                second.getLatitude(), second.getLongitude(), getCosLatitude(second.getLatitude()));
+    }
 
-        double firstLatitude = first.getLatitude() * DEGREES_TO_RADIANS;
-        double secondLatitude = second.getLatitude() * DEGREES_TO_RADIANS;
+    /** Method to calculate distance between two points on a sphere with precomputed cosines of latitudes.<br>
+     * It gives exactly the same result as getDistance(Point, Point).<br>
+     * @param firstLatitude latitude of the first point
+     * @param firstLongitude longitude of the first point
+     * @param firstCosLatitude cosine of the latitude of the first point (in radians)
+     * @param secondLatitude latitude of the second point
+     * @param secondLongitude longitude of the second point
+     * @param secondCosLatitude cosine of the latitude of the second point (in radians)
+     * @return distance between two points
+     */
+    static double getDistance(double firstLatitude, double firstLongitude, double firstCosLatitude,
+                              double secondLatitude, double secondLongitude, double secondCosLatitude) {
+        double degreesLongitude = (secondLongitude - firstLongitude) * DEGREES_TO_RADIANS;
+        double degreesLatitude = (secondLatitude - firstLatitude) * DEGREES_TO_RADIANS;
 
         double a = Math.pow(Math.sin(degreesLatitude / 2), 2) +
-                Math.pow(Math.sin(degreesLongitude / 2), 2) * Math.cos(firstLatitude) * Math.cos(secondLatitude);
+                Math.pow(Math.sin(degreesLongitude / 2), 2) * firstCosLatitude * secondCosLatitude;
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
         return c * EARTH_RADIUS_KM;
     }
 
+    /** Method to compute cosine of the latitude used by getDistance
+     * @param latitude latitude of the point
+     * @return cosine of the latitude (in radians)
+     */
+    static double getCosLatitude(double latitude) {
+        return Math.cos(latitude * DEGREES_TO_RADIANS);
+    }
+
     /*
 
 
@@ -60,4 +81,23 @@ public class CoordinatesCalculator {
         double mercator = Math.log(Math.tan((Math.PI / 4) + ((latitude * DEGREES_TO_RADIANS) / 2)));
         return (MAP_HEIGHT / 2) - (MAP_WIDTH * mercator / (2 * Math.PI));
     }
+
+    /** Method to convert point coordinates to a unit vector on a sphere.<br>
+     * Euclidean (chord) distance between two such vectors grows monotonically with the Haversine distance,<br>
+     * so nearest neighbours found in this space are the same as nearest neighbours on a sphere.<br>
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @return X, Y, Z coordinates of the point on a unit sphere
+     */
+    public static double[] convertToUnitVector(double latitude, double longitude) {
+        double latitudeRadians = latitude * DEGREES_TO_RADIANS;
+        double longitudeRadians = longitude * DEGREES_TO_RADIANS;
+        double cosLatitude = Math.cos(latitudeRadians);
+
+        return new double[]{
+                cosLatitude * Math.cos(longitudeRadians),
+                cosLatitude * Math.sin(longitudeRadians),
+                Math.sin(latitudeRadians)
+        };
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package calculators;
+
+import model.Point;
+
+import java.util.List;
+
+public class PointsDistanceCalculator {
+
+    private double[] latitudes; // Latitudes of the points
+    private double[] longitudes; // Longitudes of the points
+    private double[] cosLatitudes; // Cosines of latitudes of the points - computed once instead of once for each pair
+
+    /**
+     * PointsDistanceCalculator object constructor
+     * @param points list of points, indexes of the list are used to identify the points
+     */
+    public PointsDistanceCalculator(List<Point> points) {
+        this.latitudes = new double[points.size()];
+        this.longitudes = new double[points.size()];
+        this.cosLatitudes = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            latitudes[i] = points.get(i).getLatitude();
+            longitudes[i] = points.get(i).getLongitude();
+            cosLatitudes[i] = CoordinatesCalculator.getCosLatitude(latitudes[i]);
+        }
+    }
+
+    /**
+     * Method to calculate distance between two points.<br>
+     * It gives exactly the same result as CoordinatesCalculator.getDistance, with two cosines less.<br>
+     * @param first index of the first point
+     * @param second index of the second point
+     * @return distance between two points
+     */
+    public double getDistance(int first, int second) {
+        return CoordinatesCalculator.getDistance(latitudes[first], longitudes[first], cosLatitudes[first],
+                latitudes[second], longitudes[second], cosLatitudes[second]);
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+}
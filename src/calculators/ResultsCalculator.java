@@ -1,31 +1,30 @@
 package calculators;
 
 import model.Cluster;
-import model.Point;
 import model.Results;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class ResultsCalculator {
 
     private static final int MIN_CLUSTER_OCCURRENCE = 3;
 
     /**
-     * Method to calculate metrics of clustering
+     * Method to calculate metrics of clustering<br>
+     * All metrics are computed from the contingency matrix of result clusters and original clusters.<br>
      * @param clusters list of clusters
-     * @return Result object with fields such as nrOfPoints, nrOfPositiveClassifiedPoints, accuracy, averagePurity
+     * @return Result object with fields such as nrOfPoints, nrOfPositiveClassifiedPoints, accuracy, averagePurity, ARI, NMI, F-measure
      */
     public Results calculate(List<Cluster> clusters) {
-        int nrOfPoints = 0;
+        ContingencyMatrix contingencyMatrix = new ContingencyMatrix(clusters);
+        int nrOfPoints = contingencyMatrix.getNrOfPoints();
         int nrOfPositiveClassifiedPoints = 0;
         double totalPurity = 0;
 
-        for (Cluster cluster : clusters) {
-            Results clusterResults = calculateClusterMetrics(cluster);
+        for (int i = 0; i < clusters.size(); i++) {
+            Cluster cluster = clusters.get(i);
+            Results clusterResults = calculateClusterMetrics(contingencyMatrix, i, cluster);
             cluster.setResults(clusterResults);
-            nrOfPoints += clusterResults.getNrOfPoints();
             nrOfPositiveClassifiedPoints += clusterResults.getNrOfPositiveClassifiedPoints();
             totalPurity += clusterResults.getPurity();
         }
@@ -33,40 +32,28 @@ public class ResultsCalculator {
         double accuracy = (double) nrOfPositiveClassifiedPoints / (double) nrOfPoints;
         double averagePurity = totalPurity / (double) clusters.size();
 
-        return new Results(nrOfPoints, nrOfPositiveClassifiedPoints, accuracy, averagePurity);
+        return new Results(nrOfPoints, nrOfPositiveClassifiedPoints, accuracy, averagePurity,
+                contingencyMatrix.getAdjustedRandIndex(),
+                contingencyMatrix.getNormalizedMutualInformation(),
+                contingencyMatrix.getFMeasure());
     }
 
 
     /**
      * Method to calculate metrics for each cluster
+     * @param contingencyMatrix contingency matrix of all clusters
+     * @param idx index of the cluster in the contingency matrix
      * @param cluster cluster for which metrics are going to be calculated
      * @return Result object with fields such as nrOfPoints, nrOfPositiveClassifiedPoints, accuracy, averagePurity
      */
-    private Results calculateClusterMetrics(Cluster cluster) {
-        int nrOfPoints = cluster.getPoints().size();
-        int nrOfPositiveClassifiedPoints = 0;
-        String clusterName = cluster.getName();
-        // Map (originalClusterName, count of occurrences)
-        Map<String, Integer> occurrences = new HashMap<>();
-
-        for (Point point : cluster.getPoints()) {
-            String originalClusterName = point.getOriginalCluster();
-            if (clusterName.equals(originalClusterName)) {
-                nrOfPositiveClassifiedPoints++;
-            }
-
-            if (occurrences.containsKey(originalClusterName)) {
-                occurrences.merge(originalClusterName, 1, Integer::sum);
-            } else {
-                occurrences.put(originalClusterName, 1);
-            }
-        }
+    private Results calculateClusterMetrics(ContingencyMatrix contingencyMatrix, int idx, Cluster cluster) {
+        int nrOfPoints = contingencyMatrix.getClusterSize(idx);
+        // Points with the same original cluster name as the name of the cluster
+        int nrOfPositiveClassifiedPoints = contingencyMatrix.getCount(idx, cluster.getName());
 
         double accuracy = (double) nrOfPositiveClassifiedPoints / (double) nrOfPoints;
-        double purity = occurrences.entrySet().stream()
-                .filter(x -> x.getValue() >= MIN_CLUSTER_OCCURRENCE)
-                .count();
+        double purity = contingencyMatrix.getNrOfLabels(idx, MIN_CLUSTER_OCCURRENCE);
 
         return new Results(nrOfPoints, nrOfPositiveClassifiedPoints, accuracy, purity);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,217 @@
+package graphics;
+
+import model.Cluster;
+import model.Point;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Renderer of large clusterings.<br>
+ * Unlike ResultsVisualization it does not modify X and Y coordinates of the points.<br>
+ * Points are written directly into the pixel buffer - the image in parallel horizontal stripes<br>
+ * and the tile pyramid in parallel tiles.<br>
+ */
+public class RasterRenderer {
+
+    private static final int TILE_SIZE = 256; // Width and height of the single tile of the pyramid
+    private static final int BACKGROUND = Color.WHITE.getRGB();
+    private static final float GOLDEN_RATIO_CONJUGATE = 0.618034f; // Hue step for clusters without predefined color
+
+    private double scale; // Number of pixels per Mercator unit
+    private double[] pointsX, pointsY; // X,Y coordinates of all points in order of clusters
+    private int[] pointsColors; // RGB color of each point - color of its cluster
+    private double minX, minY, maxX, maxY; // Bounds of the coordinates
+
+    /**
+     * RasterRenderer object constructor<br>
+     * It copies coordinates of all points and computes their bounds in a single pass.<br>
+     * @param clusters list of clusters for visualisation
+     * @param scale number of pixels per Mercator unit
+     */
+    public RasterRenderer(List<Cluster> clusters, double scale) {
+        this.scale = scale;
+        int nrOfPoints = clusters.stream().mapToInt(c -> c.getPoints().size()).sum();
+        this.pointsX = new double[nrOfPoints];
+        this.pointsY = new double[nrOfPoints];
+        this.pointsColors = new int[nrOfPoints];
+
+        minX = minY = Double.POSITIVE_INFINITY;
+        maxX = maxY = Double.NEGATIVE_INFINITY;
+        int idx = 0;
+        for (int i = 0; i < clusters.size(); i++) {
+            int color = getColor(i);
+            for (Point point : clusters.get(i).getPoints()) {
+                pointsX[idx] = point.getX();
+                pointsY[idx] = point.getY();
+                pointsColors[idx] = color;
+                minX = Math.min(minX, point.getX());
+                minY = Math.min(minY, point.getY());
+                maxX = Math.max(maxX, point.getX());
+                maxY = Math.max(maxY, point.getY());
+                idx++;
+            }
+        }
+    }
+
+    /**
+     * Method to get color of the cluster - predefined color of ResultsVisualization or a color with a distinct hue
+     * @param cluster index of the cluster
+     * @return RGB color
+     */
+    private static int getColor(int cluster) {
+        if (cluster < ResultsVisualization.COLORS.length) {
+            return ResultsVisualization.COLORS[cluster].getRGB();
+        }
+        return Color.HSBtoRGB((cluster * GOLDEN_RATIO_CONJUGATE) % 1, 0.8f, 0.9f);
+    }
+
+    /**
+     * Method to render all points into a single image.<br>
+     * Points are grouped by stripes of rows once, then each stripe is filled by a separate thread from its own points only.<br>
+     * Points of later clusters cover points of earlier ones.<br>
+     * @return rendered image
+     */
+    public BufferedImage render() {
+        int width = getSize(maxX - minX, scale);
+        int height = getSize(maxY - minY, scale);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        int nrOfStripes = Math.min(Runtime.getRuntime().availableProcessors(), height);
+        // Stripe s has rows from s * height / nrOfStripes (inclusive) to (s + 1) * height / nrOfStripes (exclusive)
+        int[] pointsStripes = new int[pointsColors.length];
+        for (int i = 0; i < pointsStripes.length; i++) {
+            int row = (int) ((pointsY[i] - minY) * scale);
+            pointsStripes[i] = (int) (((long) row + 1) * nrOfStripes - 1) / height;
+        }
+        int[] stripesPoints = new int[pointsStripes.length];
+        int[] stripesOffsets = groupPoints(pointsStripes, nrOfStripes, stripesPoints);
+
+        IntStream.range(0, nrOfStripes).parallel().forEach(stripe -> {
+            int fromRow = (int) ((long) stripe * height / nrOfStripes);
+            int toRow = (int) ((long) (stripe + 1) * height / nrOfStripes);
+            Arrays.fill(pixels, fromRow * width, toRow * width, BACKGROUND);
+            for (int j = stripesOffsets[stripe]; j < stripesOffsets[stripe + 1]; j++) {
+                int i = stripesPoints[j];
+                int row = (int) ((pointsY[i] - minY) * scale);
+                int column = (int) ((pointsX[i] - minX) * scale);
+                pixels[row * width + column] = pointsColors[i];
+            }
+        });
+
+        return image;
+    }
+
+    /**
+     * Method to render and save visualization image
+     * @param outputFilePath path to the output .png file
+     * @throws IOException
+     */
+    public void drawImage(String outputFilePath) throws IOException {
+        ImageIO.write(render(), "PNG", new File(outputFilePath));
+    }
+
+    /**
+     * Method to render tile pyramid for zooming - files outputDirectory/z/x/y.png.<br>
+     * Zoom level maxZoom has the scale of the renderer, each lower level has the scale two times smaller.<br>
+     * Tiles without points are not written.<br>
+     * @param outputDirectory root directory of the pyramid
+     * @param maxZoom the highest zoom level
+     * @throws IOException
+     */
+    public void drawTiles(File outputDirectory, int maxZoom) throws IOException {
+        try {
+            for (int zoom = 0; zoom <= maxZoom; zoom++) {
+                drawZoomLevel(new File(outputDirectory, String.valueOf(zoom)), scale / (1L << (maxZoom - zoom)));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Method to render all tiles of single zoom level.<br>
+     * Points are grouped by tiles with groupPoints, so each tile reads only its own points.<br>
+     * @param zoomDirectory directory of the zoom level
+     * @param levelScale number of pixels per Mercator unit on this level
+     */
+    private void drawZoomLevel(File zoomDirectory, double levelScale) {
+        int nrOfTilesX = (getSize(maxX - minX, levelScale) + TILE_SIZE - 1) / TILE_SIZE;
+        int nrOfTilesY = (getSize(maxY - minY, levelScale) + TILE_SIZE - 1) / TILE_SIZE;
+
+        int[] pointsTiles = new int[pointsColors.length];
+        for (int i = 0; i < pointsTiles.length; i++) {
+            int tileX = (int) ((pointsX[i] - minX) * levelScale) / TILE_SIZE;
+            int tileY = (int) ((pointsY[i] - minY) * levelScale) / TILE_SIZE;
+            pointsTiles[i] = tileY * nrOfTilesX + tileX;
+        }
+        int[] tilesPoints = new int[pointsTiles.length];
+        int[] tilesOffsets = groupPoints(pointsTiles, nrOfTilesX * nrOfTilesY, tilesPoints);
+
+        IntStream.range(0, nrOfTilesX * nrOfTilesY).parallel()
+                .filter(tile -> tilesOffsets[tile] < tilesOffsets[tile + 1])
+                .forEach(tile -> {
+                    int tileX = tile % nrOfTilesX;
+                    int tileY = tile / nrOfTilesX;
+                    BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+                    int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                    Arrays.fill(pixels, BACKGROUND);
+                    for (int j = tilesOffsets[tile]; j < tilesOffsets[tile + 1]; j++) {
+                        int i = tilesPoints[j];
+                        int column = (int) ((pointsX[i] - minX) * levelScale) - tileX * TILE_SIZE;
+                        int row = (int) ((pointsY[i] - minY) * levelScale) - tileY * TILE_SIZE;
+                        pixels[row * TILE_SIZE + column] = pointsColors[i];
+                    }
+
+                    File tileDirectory = new File(zoomDirectory, String.valueOf(tileX));
+                    tileDirectory.mkdirs();
+                    try {
+                        ImageIO.write(image, "PNG", new File(tileDirectory, tileY + ".png"));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Method to group points with counting sort, which keeps the order of clusters within the group
+     * @param pointsGroups group of each point
+     * @param nrOfGroups number of groups
+     * @param groupsPoints array filled with indexes of the points ordered by groups
+     * @return offsets of the groups in groupsPoints, points of the group g are between offsets g (inclusive) and g + 1 (exclusive)
+     */
+    private static int[] groupPoints(int[] pointsGroups, int nrOfGroups, int[] groupsPoints) {
+        int[] groupsOffsets = new int[nrOfGroups + 1];
+        for (int group : pointsGroups) {
+            groupsOffsets[group + 1]++;
+        }
+        for (int group = 0; group < nrOfGroups; group++) {
+            groupsOffsets[group + 1] += groupsOffsets[group];
+        }
+        int[] nextPositions = Arrays.copyOf(groupsOffsets, nrOfGroups);
+        for (int i = 0; i < pointsGroups.length; i++) {
+            groupsPoints[nextPositions[pointsGroups[i]]++] = i;
+        }
+
+        return groupsOffsets;
+    }
+
+    /**
+     * Method to compute size of the image in pixels, the greatest coordinate is the last pixel
+     * @param range range of coordinates
+     * @param scale number of pixels per Mercator unit
+     * @return number of pixels
+     */
+    private static int getSize(double range, double scale) {
+        return Math.max((int) (range * scale), 0) + 1;
+    }
+}
@@ -19,7 +19,7 @@ public class ResultsVisualization {
     private int height;
     private BufferedImage image;
 
-    private static final Color[] COLORS = {
+    static final Color[] COLORS = {
             Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW, Color.PINK,
             Color.ORANGE, Color.GRAY, Color.MAGENTA, Color.DARK_GRAY, Color.CYAN,
             Color.LIGHT_GRAY, Color.BLACK
@@ -0,0 +1,265 @@
+package helpers;
+
+import calculators.CoordinatesCalculator;
+import model.Cluster;
+import model.Point;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Index for point-to-cluster lookups after clustering.<br>
+ * Clustered points are stored in an implicit k-d tree - balanced tree in arrays, the root of each range is its middle element.<br>
+ * The index is immutable, so any number of threads can query it without locking.<br>
+ * The arrays are saved to the file as they are, loading does not rebuild the tree.<br>
+ * Unlike KdTree, which keeps a node object per point to allow insertion, there are no objects per point,<br>
+ * so the tree of millions of points is built, saved and loaded in bulk.<br>
+ */
+public class ClusterIndex {
+
+    private static final int DIMENSIONS = 3;
+    private static final int FILE_MAGIC = 0x43484d49; // "CHMI"
+    private static final int FILE_VERSION = 1;
+
+    private final double[][] coordinates; // Coordinates of the points on a unit sphere, [axis][point] in order of the tree
+    private final int[] pointsClusters; // Index of the cluster of each point in order of the tree
+    private final String[] clustersNames; // Names of the clusters
+
+    private ClusterIndex(double[][] coordinates, int[] pointsClusters, String[] clustersNames) {
+        this.coordinates = coordinates;
+        this.pointsClusters = pointsClusters;
+        this.clustersNames = clustersNames;
+    }
+
+    /**
+     * ClusterIndex object constructor
+     * @param clusters list of result clusters, indexes of the list identify the clusters
+     */
+    public ClusterIndex(List<Cluster> clusters) {
+        int nrOfPoints = clusters.stream().mapToInt(c -> c.getPoints().size()).sum();
+        this.coordinates = new double[DIMENSIONS][nrOfPoints];
+        this.pointsClusters = new int[nrOfPoints];
+        this.clustersNames = new String[clusters.size()];
+
+        int idx = 0;
+        for (int i = 0; i < clusters.size(); i++) {
+            clustersNames[i] = clusters.get(i).getName();
+            for (Point point : clusters.get(i).getPoints()) {
+                double[] unitVector = CoordinatesCalculator.convertToUnitVector(point.getLatitude(), point.getLongitude());
+                for (int axis = 0; axis < DIMENSIONS; axis++) {
+                    coordinates[axis][idx] = unitVector[axis];
+                }
+                pointsClusters[idx] = i;
+                idx++;
+            }
+        }
+        build(0, nrOfPoints, 0);
+    }
+
+    /**
+     * Recursive method to order the range of points as a balanced subtree - median by the axis of the depth in the middle
+     * @param from index of the first point in range (inclusive)
+     * @param to index of the last point in range (exclusive)
+     * @param depth depth of the subtree root
+     */
+    private void build(int from, int to, int depth) {
+        if (to - from <= 1) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, depth % DIMENSIONS);
+        build(from, middle, depth + 1);
+        build(middle + 1, to, depth + 1);
+    }
+
+    /**
+     * Quickselect - method to move the point with k-th smallest coordinate to the position k,<br>
+     * points with smaller coordinates before it and points with greater coordinates after it.<br>
+     * @param left index of the first point in range (inclusive)
+     * @param right index of the last point in range (inclusive)
+     * @param k position of the selected point
+     * @param axis axis of the coordinate
+     */
+    private void select(int left, int right, int k, int axis) {
+        double[] keys = coordinates[axis];
+        while (left < right) {
+            double pivot = keys[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        for (double[] axisCoordinates : coordinates) {
+            double coordinate = axisCoordinates[i];
+            axisCoordinates[i] = axisCoordinates[j];
+            axisCoordinates[j] = coordinate;
+        }
+        int cluster = pointsClusters[i];
+        pointsClusters[i] = pointsClusters[j];
+        pointsClusters[j] = cluster;
+    }
+
+    /**
+     * Method to find the cluster of the nearest clustered point
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @return index of the cluster or -1 if the index is empty
+     */
+    public int findCluster(double latitude, double longitude) {
+        double[] query = CoordinatesCalculator.convertToUnitVector(latitude, longitude);
+        // Index of the nearest point and its squared distance - local to the query, no shared state
+        double[] best = {-1, Double.POSITIVE_INFINITY};
+        search(0, pointsClusters.length, 0, query, best);
+
+        return best[0] < 0 ? -1 : pointsClusters[(int) best[0]];
+    }
+
+    /**
+     * Method to find the name of the cluster of the nearest clustered point
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @return name of the cluster or null if the index is empty
+     */
+    public String findClusterName(double latitude, double longitude) {
+        int cluster = findCluster(latitude, longitude);
+        return cluster < 0 ? null : clustersNames[cluster];
+    }
+
+    /**
+     * Recursive method to find the nearest point in the subtree
+     * @param from index of the first point in range (inclusive)
+     * @param to index of the last point in range (exclusive)
+     * @param depth depth of the subtree root
+     * @param query coordinates of the searched point on a unit sphere
+     * @param best index of the nearest point found so far and its squared distance
+     */
+    private void search(int from, int to, int depth, double[] query, double[] best) {
+        if (from >= to) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        double distance = 0.0;
+        for (int axis = 0; axis < DIMENSIONS; axis++) {
+            double difference = query[axis] - coordinates[axis][middle];
+            distance += difference * difference;
+        }
+        if (distance < best[1]) {
+            best[0] = middle;
+            best[1] = distance;
+        }
+
+        int axis = depth % DIMENSIONS;
+        double axisDistance = query[axis] - coordinates[axis][middle];
+        if (axisDistance < 0) {
+            search(from, middle, depth + 1, query, best);
+            if (axisDistance * axisDistance < best[1]) {
+                search(middle + 1, to, depth + 1, query, best);
+            }
+        } else {
+            search(middle + 1, to, depth + 1, query, best);
+            if (axisDistance * axisDistance < best[1]) {
+                search(from, middle, depth + 1, query, best);
+            }
+        }
+    }
+
+    /**
+     * Method to save the index to the binary file
+     * @param outputFile output file
+     * @throws IOException
+     */
+    public void save(File outputFile) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeInt(clustersNames.length);
+            for (String name : clustersNames) {
+                byte[] bytes = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(name == null ? -1 : bytes.length);
+                output.write(bytes);
+            }
+            output.writeInt(pointsClusters.length);
+            for (double[] axisCoordinates : coordinates) {
+                for (double coordinate : axisCoordinates) {
+                    output.writeDouble(coordinate);
+                }
+            }
+            for (int cluster : pointsClusters) {
+                output.writeInt(cluster);
+            }
+        }
+    }
+
+    /**
+     * Method to load the index saved with the save method.<br>
+     * The file is mapped into memory and copied to the arrays in bulk.<br>
+     * @param inputFile input file
+     * @return loaded index
+     * @throws IOException
+     */
+    public static ClusterIndex load(File inputFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt() != FILE_MAGIC || buffer.getInt() != FILE_VERSION) {
+                throw new IOException("Not a cluster index file: " + inputFile);
+            }
+
+            String[] clustersNames = new String[buffer.getInt()];
+            for (int i = 0; i < clustersNames.length; i++) {
+                int length = buffer.getInt();
+                if (length >= 0) {
+                    byte[] bytes = new byte[length];
+                    buffer.get(bytes);
+                    clustersNames[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+
+            int nrOfPoints = buffer.getInt();
+            double[][] coordinates = new double[DIMENSIONS][nrOfPoints];
+            for (double[] axisCoordinates : coordinates) {
+                buffer.asDoubleBuffer().get(axisCoordinates);
+                buffer.position(buffer.position() + nrOfPoints * Double.BYTES);
+            }
+            int[] pointsClusters = new int[nrOfPoints];
+            buffer.asIntBuffer().get(pointsClusters);
+
+            return new ClusterIndex(coordinates, pointsClusters, clustersNames);
+        }
+    }
+
+    public String getClusterName(int cluster) {
+        return clustersNames[cluster];
+    }
+
+    public int getNrOfClusters() {
+        return clustersNames.length;
+    }
+
+    public int size() {
+        return pointsClusters.length;
+    }
+}
@@ -6,11 +6,15 @@ import model.Point;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class CsvParser {
 
     private static final String SEPARATOR = ";";
+    private static final String COMMA_SEPARATOR = ","; // Separator of the .csv files in the data folder
+    static final String HEADER = "city" + SEPARATOR + "state_name" + SEPARATOR + "lat" + SEPARATOR + "lng";
+    private static final String WEIGHT_COLUMN = "weight"; // Optional fifth column - number of original points represented by the point
 
     /**
      * Method to read points from csv file it reads the file line by line and creates the points
@@ -23,14 +27,14 @@ public class CsvParser {
         InputStream inputStream = new FileInputStream(inputFile);
         BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
 
+        String separator = getSeparator(bufferedReader.readLine());
         List<String> csvLines = bufferedReader.lines()
-                .skip(1)
                 .collect(Collectors.toList());
 
         List<Point> points = new ArrayList<>();
         for (int i = 0; i < csvLines.size(); i++) {
             System.out.println(i);
-            Point point = createPointFromCsvLine(csvLines.get(i), i);
+            Point point = createPointFromCsvLine(csvLines.get(i), separator, i, i + 2);
             points.add(point);
         }
 
@@ -38,23 +42,119 @@ public class CsvParser {
         return points;
     }
 
+    /**
+     * Method to read points from csv file one by one, without keeping the whole file in memory
+     * @param inputFilePath path to the input .csv file
+     * @param consumer consumer called for each point created based on the input file
+     * @throws IOException
+     */
+    public void forEachPoint(String inputFilePath, Consumer<Point> consumer) throws IOException {
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(inputFilePath))) {
+            forEachPoint(bufferedReader, consumer);
+        }
+    }
+
+    /**
+     * Method to read points in csv format one by one, e.g. from the request body
+     * @param bufferedReader reader of the csv content with the header line
+     * @param consumer consumer called for each point created based on the csv content
+     * @throws IOException
+     */
+    public void forEachPoint(BufferedReader bufferedReader, Consumer<Point> consumer) throws IOException {
+        String separator = getSeparator(bufferedReader.readLine());
+        String csvLine;
+        int idx = 0;
+        int lineNumber = 1;
+        while ((csvLine = bufferedReader.readLine()) != null) {
+            lineNumber++;
+            if (!csvLine.isEmpty()) {
+                consumer.accept(createPointFromCsvLine(csvLine, separator, idx++, lineNumber));
+            }
+        }
+    }
+
+    /**
+     * Method to get separator of the csv content from its header line - ";" or "," used by the files in the data folder
+     * @param headerLine the first line of the csv content
+     * @return separator of the cells
+     */
+    private static String getSeparator(String headerLine) {
+        return headerLine != null && !headerLine.contains(SEPARATOR) && headerLine.contains(COMMA_SEPARATOR)
+                ? COMMA_SEPARATOR : SEPARATOR;
+    }
+
     /**
      *  Method to create point object from single csv line
      * @param csvLine line read from .csv file
+     * @param separator separator of the cells
      * @param idx index of the new point
+     * @param lineNumber number of the line in the .csv file, used in the error message
      * @return line converted to the point
+     * @throws IllegalArgumentException if the line does not have state name, latitude and longitude or has invalid weight
      */
-    private Point createPointFromCsvLine(String csvLine, int idx) {
-        String[] csvCells = csvLine.split(SEPARATOR);
+    private Point createPointFromCsvLine(String csvLine, String separator, int idx, int lineNumber) {
+        String[] csvCells = csvLine.split(separator);
+        if (csvCells.length < 4) {
+            throw new IllegalArgumentException("Malformed csv line " + lineNumber + ": expected 4 cells separated by \""
+                    + separator + "\", found " + csvCells.length);
+        }
         Point point = new Point();
         point.setId(idx);
         point.setOriginalCluster(csvCells[1]);
-        point.setLatitude(Double.valueOf(csvCells[2]));
+        try {
+            point.setLatitude(Double.valueOf(csvCells[2]));
+            point.setLongitude(Double.valueOf(csvCells[3]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed csv line " + lineNumber + ": invalid coordinates "
+                    + csvCells[2] + separator + csvCells[3]);
+        }
+        if (csvCells.length > 4) {
+            String invalidWeight = "Malformed csv line " + lineNumber + ": invalid weight " + csvCells[4];
+            try {
+                point.setWeight(Integer.parseInt(csvCells[4]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(invalidWeight);
+            }
+            if (point.getWeight() < 1) {
+                throw new IllegalArgumentException(invalidWeight);
+            }
+        }
         point.setY(CoordinatesCalculator.convertLatitudeToY(point.getLatitude()));
-        point.setLongitude(Double.valueOf(csvCells[3]));
         point.setX(CoordinatesCalculator.convertLongitudeToX(point.getLongitude()));
 
         return point;
     }
-}
 
+    /**
+     * Method to write points to csv file in the format read by this parser.<br>
+     * Identifiers of the points are written as names, coordinates are written exactly and weights in the weight column,<br>
+     * so read points are the same - also weighted representatives of PointDeduplicator.<br>
+     * @param outputFilePath path to the output .csv file
+     * @param points list of points in order of their identifiers
+     * @throws IOException
+     */
+    public void writePoints(String outputFilePath, List<Point> points) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(outputFilePath)))) {
+            writer.println(HEADER + SEPARATOR + WEIGHT_COLUMN);
+            for (Point point : points) {
+                writer.println(createCsvLine(String.valueOf(point.getId()), point.getOriginalCluster(),
+                        point.getLatitude(), point.getLongitude()) + SEPARATOR + point.getWeight());
+            }
+            if (writer.checkError()) {
+                throw new IOException("Could not write output file: " + outputFilePath);
+            }
+        }
+    }
+
+    /**
+     * Method to create single csv line
+     * @param city name of the point
+     * @param stateName original cluster name
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @return csv line
+     */
+    static String createCsvLine(String city, String stateName, double latitude, double longitude) {
+        return city + SEPARATOR + stateName + SEPARATOR + latitude + SEPARATOR + longitude;
+    }
+}
@@ -0,0 +1,135 @@
+package helpers;
+
+import calculators.CoordinatesCalculator;
+import model.Point;
+
+import java.io.*;
+import java.util.Random;
+
+/**
+ * Generator of synthetic labelled datasets with known cluster structure.<br>
+ * Cluster centres are drawn in the bounding box of the continental United States, far enough from each other,<br>
+ * points of each cluster have normal distribution around its centre. The original cluster name of each point<br>
+ * is the name of its generated cluster, so results can be measured the same way as for the real datasets.<br>
+ * Points are written one by one, so datasets of millions of points do not have to fit in memory.<br>
+ */
+public class DatasetGenerator {
+
+    private static final double MIN_LATITUDE = 25.0, MAX_LATITUDE = 49.0; // Bounding box of the cluster centres
+    private static final double MIN_LONGITUDE = -124.0, MAX_LONGITUDE = -67.0;
+    private static final double MIN_RADIUS_KM = 10.0, MAX_RADIUS_KM = 60.0; // Standard deviation of the distance from the centre
+    private static final double SEPARATION = 3.0; // Minimal distance between centres as a multiple of the sum of radii
+    private static final int MAX_ATTEMPTS = 1000; // Attempts to find separated centre before the last one is accepted
+    private static final double KM_PER_DEGREE = Math.PI * CoordinatesCalculator.EARTH_RADIUS_KM / 180.0;
+    private static final double COORDINATES_SCALE = 1e6; // Coordinates are rounded to 6 decimal places
+
+    private int nrOfClusters; // Number of generated clusters
+    private long seed; // Seed of the random generator - the same seed gives the same dataset
+
+    /**
+     * Arguments: outputFilePath, nrOfPoints, nrOfClusters, seed
+     */
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.out.println("Arguments: outputFilePath, nrOfPoints, nrOfClusters, seed");
+            System.exit(1);
+        }
+
+        try {
+            new DatasetGenerator(Integer.parseInt(args[2]), Long.parseLong(args[3]))
+                    .generate(args[0], Integer.parseInt(args[1]));
+        } catch (IOException e) {
+            System.out.println("Could not write output file: " + args[0]);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * DatasetGenerator object constructor
+     * @param nrOfClusters number of generated clusters
+     * @param seed seed of the random generator - the same seed gives the same dataset
+     */
+    public DatasetGenerator(int nrOfClusters, long seed) {
+        this.nrOfClusters = nrOfClusters;
+        this.seed = seed;
+    }
+
+    /**
+     * Method to generate the dataset and write it to csv file in the CsvParser format
+     * @param outputFilePath path to the output .csv file
+     * @param nrOfPoints number of points
+     * @throws IOException
+     */
+    public void generate(String outputFilePath, int nrOfPoints) throws IOException {
+        Random random = new Random(seed);
+        Point[] centres = new Point[nrOfClusters];
+        double[] radii = new double[nrOfClusters];
+        double[] cumulativeSizes = new double[nrOfClusters]; // Clusters have different expected sizes
+        for (int i = 0; i < nrOfClusters; i++) {
+            radii[i] = MIN_RADIUS_KM + random.nextDouble() * (MAX_RADIUS_KM - MIN_RADIUS_KM);
+            centres[i] = drawCentre(random, centres, radii, i);
+            cumulativeSizes[i] = (i > 0 ? cumulativeSizes[i - 1] : 0.0) + 0.5 + random.nextDouble();
+        }
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(outputFilePath)))) {
+            writer.println(CsvParser.HEADER);
+            for (int i = 0; i < nrOfPoints; i++) {
+                int cluster = drawCluster(random, cumulativeSizes);
+                Point centre = centres[cluster];
+                double latitude = centre.getLatitude() + random.nextGaussian() * radii[cluster] / KM_PER_DEGREE;
+                double longitude = centre.getLongitude() + random.nextGaussian() * radii[cluster]
+                        / (KM_PER_DEGREE * Math.cos(Math.toRadians(centre.getLatitude())));
+                writer.println(CsvParser.createCsvLine("p" + i, "cluster_" + cluster, round(latitude), round(longitude)));
+            }
+            if (writer.checkError()) {
+                throw new IOException("Could not write output file: " + outputFilePath);
+            }
+        }
+    }
+
+    /**
+     * Method to draw centre of the cluster separated from the centres drawn before
+     * @param random random generator
+     * @param centres centres of the clusters, drawn for indexes less than cluster
+     * @param radii radii of the clusters, drawn for indexes up to cluster
+     * @param cluster index of the cluster
+     * @return centre of the cluster
+     */
+    private Point drawCentre(Random random, Point[] centres, double[] radii, int cluster) {
+        Point centre = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            centre = new Point(cluster, MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE),
+                    MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE));
+            if (isSeparated(centre, centres, radii, cluster)) {
+                break;
+            }
+        }
+
+        return centre;
+    }
+
+    private boolean isSeparated(Point centre, Point[] centres, double[] radii, int cluster) {
+        for (int i = 0; i < cluster; i++) {
+            if (CoordinatesCalculator.getDistance(centre, centres[i]) < SEPARATION * (radii[i] + radii[cluster])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int drawCluster(Random random, double[] cumulativeSizes) {
+        double value = random.nextDouble() * cumulativeSizes[cumulativeSizes.length - 1];
+        for (int i = 0; i < cumulativeSizes.length - 1; i++) {
+            if (value < cumulativeSizes[i]) {
+                return i;
+            }
+        }
+
+        return cumulativeSizes.length - 1;
+    }
+
+    private double round(double coordinate) {
+        return Math.round(coordinate * COORDINATES_SCALE) / COORDINATES_SCALE;
+    }
+}
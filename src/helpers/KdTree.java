@@ -0,0 +1,233 @@
+package helpers;
+
+import calculators.CoordinatesCalculator;
+import model.Point;
+
+import java.util.*;
+
+public class KdTree {
+
+    private static final int DIMENSIONS = 3;
+    private static final double BALANCE = 0.7; // Maximal part of the subtree points in one child before the subtree is rebuilt
+
+    private Node root; // Root of the tree
+    private int size; // Number of indexed points
+
+    /**
+     * Single vertex of the tree - indexed point with its coordinates on a unit sphere
+     */
+    private static class Node {
+        private final Point point;
+        private final double[] coordinates;
+        private int axis;
+        private int size; // Number of points in the subtree of the node
+        private Node left;
+        private Node right;
+
+        private Node(Point point) {
+            this.point = point;
+            this.coordinates = CoordinatesCalculator.convertToUnitVector(point.getLatitude(), point.getLongitude());
+        }
+    }
+
+    /**
+     * Candidate for the nearest neighbour with its squared chord distance to the searched point
+     */
+    private static class Neighbour {
+        private final Point point;
+        private final double distance;
+
+        private Neighbour(Point point, double distance) {
+            this.point = point;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * KdTree object constructor<br>
+     * It builds balanced tree - in each level the points are split by the median of the next axis.<br>
+     * @param points list of points to index
+     */
+    public KdTree(List<Point> points) {
+        List<Node> nodes = new ArrayList<>(points.size());
+        points.forEach(p -> nodes.add(new Node(p)));
+        this.root = build(nodes, 0, nodes.size(), 0);
+        this.size = nodes.size();
+    }
+
+    /**
+     * Recursive method to build balanced subtree from the range of nodes
+     * @param nodes list of nodes
+     * @param from index of the first node in range (inclusive)
+     * @param to index of the last node in range (exclusive)
+     * @param depth depth of the subtree root
+     * @return root of the subtree
+     */
+    private Node build(List<Node> nodes, int from, int to, int depth) {
+        if (from >= to) {
+            return null;
+        }
+        int axis = depth % DIMENSIONS;
+        List<Node> range = nodes.subList(from, to);
+        range.sort(Comparator.comparingDouble(n -> n.coordinates[axis]));
+
+        int median = from + (to - from) / 2;
+        Node node = nodes.get(median);
+        node.axis = axis;
+        node.size = to - from;
+        node.left = build(nodes, from, median, depth + 1);
+        node.right = build(nodes, median + 1, to, depth + 1);
+        return node;
+    }
+
+    /**
+     * Method to add single point to the tree.<br>
+     * The point becomes a new leaf. If the leaf is too deep, the lowest unbalanced subtree on its path is rebuilt<br>
+     * (scapegoat tree), so points added in one area do not make a chain and the depth stays O(log n).<br>
+     * @param point point to index
+     */
+    public void insert(Point point) {
+        Node node = new Node(point);
+        node.size = 1;
+        size++;
+        if (root == null) {
+            root = node;
+            return;
+        }
+
+        List<Node> path = new ArrayList<>();
+        Node parent = root;
+        while (true) {
+            parent.size++;
+            path.add(parent);
+            if (node.coordinates[parent.axis] < parent.coordinates[parent.axis]) {
+                if (parent.left == null) {
+                    parent.left = node;
+                    break;
+                }
+                parent = parent.left;
+            } else {
+                if (parent.right == null) {
+                    parent.right = node;
+                    break;
+                }
+                parent = parent.right;
+            }
+        }
+        node.axis = (parent.axis + 1) % DIMENSIONS;
+
+        if (path.size() > Math.log(size) / Math.log(1 / BALANCE)) {
+            rebuildUnbalancedSubtree(path);
+        }
+    }
+
+    /**
+     * Method to rebuild the lowest subtree on the path in which one child has more than BALANCE of the points
+     * @param path nodes from the root to the parent of the inserted leaf
+     */
+    private void rebuildUnbalancedSubtree(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (Math.max(getSize(node.left), getSize(node.right)) > BALANCE * node.size) {
+                List<Node> nodes = new ArrayList<>(node.size);
+                collect(node, nodes);
+                Node subtree = build(nodes, 0, nodes.size(), node.axis);
+                if (i == 0) {
+                    root = subtree;
+                } else if (path.get(i - 1).left == node) {
+                    path.get(i - 1).left = subtree;
+                } else {
+                    path.get(i - 1).right = subtree;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Method to collect all nodes of the subtree
+     * @param node root of the subtree
+     * @param nodes list to which the nodes are added
+     */
+    private static void collect(Node node, List<Node> nodes) {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node current = stack.pop();
+            nodes.add(current);
+            if (current.left != null) {
+                stack.push(current.left);
+            }
+            if (current.right != null) {
+                stack.push(current.right);
+            }
+        }
+    }
+
+    private static int getSize(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Method to find k nearest neighbours of the point.<br>
+     * Neighbours are exact in terms of the Haversine distance.<br>
+     * @param point searched point, it does not have to be indexed
+     * @param k number of neighbours
+     * @return list of at most k indexed points, the nearest first
+     */
+    public List<Point> nearest(Point point, int k) {
+        double[] coordinates = CoordinatesCalculator.convertToUnitVector(point.getLatitude(), point.getLongitude());
+        // Max-heap - the farthest of the current candidates is on the top
+        PriorityQueue<Neighbour> candidates = new PriorityQueue<>(
+                Comparator.comparingDouble((Neighbour n) -> n.distance).reversed());
+        search(root, coordinates, k, candidates);
+
+        List<Neighbour> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparingDouble(n -> n.distance));
+        List<Point> neighbours = new ArrayList<>(sorted.size());
+        sorted.forEach(n -> neighbours.add(n.point));
+        return neighbours;
+    }
+
+    /**
+     * Recursive method to collect k nearest neighbours from the subtree
+     * @param node root of the subtree
+     * @param coordinates coordinates of the searched point on a unit sphere
+     * @param k number of neighbours
+     * @param candidates max-heap of the nearest points found so far
+     */
+    private void search(Node node, double[] coordinates, int k, PriorityQueue<Neighbour> candidates) {
+        if (node == null || k <= 0) {
+            return;
+        }
+
+        double distance = squaredDistance(node.coordinates, coordinates);
+        if (candidates.size() < k) {
+            candidates.add(new Neighbour(node.point, distance));
+        } else if (distance < candidates.peek().distance) {
+            candidates.poll();
+            candidates.add(new Neighbour(node.point, distance));
+        }
+
+        double axisDistance = coordinates[node.axis] - node.coordinates[node.axis];
+        Node nearSubtree = axisDistance < 0 ? node.left : node.right;
+        Node farSubtree = axisDistance < 0 ? node.right : node.left;
+
+        search(nearSubtree, coordinates, k, candidates);
+        // Far subtree can contain a closer point only if the splitting plane is closer than the farthest candidate
+        if (candidates.size() < k || axisDistance * axisDistance < candidates.peek().distance) {
+            search(farSubtree, coordinates, k, candidates);
+        }
+    }
+
+    private static double squaredDistance(double[] first, double[] second) {
+        double dx = first[0] - second[0];
+        double dy = first[1] - second[1];
+        double dz = first[2] - second[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,157 @@
+package helpers;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache which removes the least recently used entries when the sum of their weights exceeds its capacity.<br>
+ * New entry has weight 1, so without setWeight the capacity is the maximal number of entries.<br>
+ * Weights can also be reserved for values kept outside of the cache - they share the capacity with the entries.<br>
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class LruCache<K, V> {
+
+    private final long capacity; // Maximal sum of weights of the entries and reservations
+    private final Consumer<V> evictionListener; // Called with each value removed to make space for other ones
+    private final Map<K, V> entries = new LinkedHashMap<>(16, 0.75f, true); // Entries in order of access, the least recently used first
+    private final Map<K, Long> weights = new HashMap<>(); // Map (key, weight of the entry)
+    private long totalWeight; // Sum of weights of the entries and reservations
+
+    /**
+     * LruCache object constructor
+     * @param capacity maximal number of entries
+     */
+    public LruCache(long capacity) {
+        this(capacity, value -> {
+        });
+    }
+
+    /**
+     * LruCache object constructor
+     * @param capacity maximal sum of weights of the entries and reservations
+     * @param evictionListener listener called with each evicted value, e.g. to release its resources
+     */
+    public LruCache(long capacity, Consumer<V> evictionListener) {
+        this.capacity = capacity;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Method to get cached value or compute and cache it.<br>
+     * The value is computed under the lock of the cache, so mapping function should only create the value<br>
+     * (e.g. start asynchronous computation), not compute it.<br>
+     * @param key key of the entry
+     * @param mappingFunction function creating the value
+     * @return cached or created value
+     */
+    public synchronized V computeIfAbsent(K key, Function<K, V> mappingFunction) {
+        V value = entries.get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            entries.put(key, value);
+            weights.put(key, 1L);
+            totalWeight++;
+            evict(key);
+        }
+
+        return value;
+    }
+
+    /**
+     * Method to set weight of the entry, e.g. when the size of the asynchronously computed value is known.<br>
+     * The least recently used entries are evicted until the entry fits in the capacity.<br>
+     * @param key key of the entry
+     * @param value value of the entry, the weight is not set if the key has other value
+     * @param weight new weight of the entry
+     * @return false if the entry does not fit in the capacity - then it is removed, true otherwise
+     */
+    public synchronized boolean setWeight(K key, V value, long weight) {
+        if (entries.get(key) != value) {
+            // The entry is not cached any more
+            return true;
+        }
+        totalWeight += weight - weights.put(key, weight);
+        evict(key);
+        if (totalWeight > capacity) {
+            remove(key);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Method to reserve weight for the value kept outside of the cache.<br>
+     * The least recently used entries are evicted until the reservation fits in the capacity.<br>
+     * @param weight weight to reserve
+     * @return false if the reservation does not fit in the capacity - then nothing is reserved, true otherwise
+     */
+    public synchronized boolean reserve(long weight) {
+        totalWeight += weight;
+        evict(null);
+        if (totalWeight > capacity) {
+            totalWeight -= weight;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Method to release weight reserved by the reserve method
+     * @param weight reserved weight
+     */
+    public synchronized void release(long weight) {
+        totalWeight -= weight;
+    }
+
+    /**
+     * Method to evict the least recently used entries until the sum of weights fits in the capacity
+     * @param keptKey key of the entry which is not evicted, null to evict any entry
+     */
+    private void evict(K keptKey) {
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while (totalWeight > capacity && iterator.hasNext()) {
+            Map.Entry<K, V> entry = iterator.next();
+            if (entry.getKey().equals(keptKey)) {
+                continue;
+            }
+            iterator.remove();
+            totalWeight -= weights.remove(entry.getKey());
+            evictionListener.accept(entry.getValue());
+        }
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void remove(K key) {
+        if (entries.remove(key) != null) {
+            totalWeight -= weights.remove(key);
+        }
+    }
+
+    /**
+     * Method to evict all entries, reservations are kept
+     */
+    public synchronized void clear() {
+        for (V value : entries.values()) {
+            evictionListener.accept(value);
+        }
+        for (long weight : weights.values()) {
+            totalWeight -= weight;
+        }
+        entries.clear();
+        weights.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,132 @@
+package helpers;
+
+import calculators.CoordinatesCalculator;
+import model.Cluster;
+import model.Point;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class PointDeduplicator {
+
+    private double toleranceKm; // Points closer than tolerance are represented by a single point
+    private List<List<Point>> representedPoints = new ArrayList<>(); // Original points of each representative
+
+    /**
+     * PointDeduplicator object constructor
+     * @param toleranceKm points closer than tolerance (in km) are represented by a single point, 0 collapses only identical coordinates
+     */
+    public PointDeduplicator(double toleranceKm) {
+        this.toleranceKm = toleranceKm;
+    }
+
+    /**
+     * Method to collapse coincident and near-coincident points into weighted representatives.<br>
+     * The first point of the group becomes the leader - representative has its coordinates,<br>
+     * the most common original cluster name of the group and weight equal to the sum of weights of the group,<br>
+     * so already weighted points can be deduplicated again.<br>
+     * Representatives get identifiers 0..m-1, so they can be clustered directly by ChameleonAlgorithm,<br>
+     * which counts each representative as weight points in partition, EC and relative closeness.<br>
+     * @param points list of points
+     * @return list of representatives
+     */
+    public List<Point> deduplicate(List<Point> points) {
+        representedPoints.clear();
+        // Map (grid cell, indexes of representatives in the cell)
+        Map<String, List<Integer>> cells = new HashMap<>();
+        List<Point> leaders = new ArrayList<>();
+
+        for (Point point : points) {
+            double[] coordinates = CoordinatesCalculator.convertToUnitVector(point.getLatitude(), point.getLongitude());
+            Integer representative = findRepresentative(point, coordinates, cells, leaders);
+            if (representative == null) {
+                representative = leaders.size();
+                leaders.add(point);
+                representedPoints.add(new ArrayList<>());
+                cells.computeIfAbsent(getCell(coordinates, 0, 0, 0), c -> new ArrayList<>()).add(representative);
+            }
+            representedPoints.get(representative).add(point);
+        }
+
+        List<Point> representatives = new ArrayList<>(leaders.size());
+        for (int i = 0; i < leaders.size(); i++) {
+            Point leader = leaders.get(i);
+            Point representative = new Point(i, leader.getLatitude(), leader.getLongitude());
+            representative.setX(leader.getX());
+            representative.setY(leader.getY());
+            representative.setWeight(representedPoints.get(i).stream().mapToInt(Point::getWeight).sum());
+            representative.setOriginalCluster(getMostCommonOriginalCluster(representedPoints.get(i)));
+            representatives.add(representative);
+        }
+
+        return representatives;
+    }
+
+    /**
+     * Method to find representative closer than tolerance in the cell of the point and neighbouring cells.<br>
+     * Cells have the size of the tolerance on a unit sphere, chord is never longer than the arc,<br>
+     * so all representatives within the tolerance are in neighbouring cells.<br>
+     * @param point point for which the representative is searched
+     * @param coordinates coordinates of the point on a unit sphere
+     * @param cells map (grid cell, indexes of representatives in the cell)
+     * @param leaders points which coordinates have the representatives
+     * @return index of the representative or null if there is no such representative
+     */
+    private Integer findRepresentative(Point point, double[] coordinates, Map<String, List<Integer>> cells, List<Point> leaders) {
+        int range = toleranceKm > 0 ? 1 : 0;
+        for (int dx = -range; dx <= range; dx++) {
+            for (int dy = -range; dy <= range; dy++) {
+                for (int dz = -range; dz <= range; dz++) {
+                    for (int representative : cells.getOrDefault(getCell(coordinates, dx, dy, dz), Collections.emptyList())) {
+                        if (CoordinatesCalculator.getDistance(point, leaders.get(representative)) <= toleranceKm) {
+                            return representative;
+                        }
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private String getCell(double[] coordinates, int dx, int dy, int dz) {
+        if (toleranceKm <= 0) {
+            return Arrays.toString(coordinates);
+        }
+        double cellSize = toleranceKm / CoordinatesCalculator.EARTH_RADIUS_KM;
+        return ((long) Math.floor(coordinates[0] / cellSize) + dx) + "_"
+                + ((long) Math.floor(coordinates[1] / cellSize) + dy) + "_"
+                + ((long) Math.floor(coordinates[2] / cellSize) + dz);
+    }
+
+    private String getMostCommonOriginalCluster(List<Point> points) {
+        return points.stream()
+                .filter(p -> p.getOriginalCluster() != null)
+                .collect(Collectors.groupingBy(Point::getOriginalCluster, Collectors.summingInt(Point::getWeight)))
+                .entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    /**
+     * Method to replace representatives in clusters with the original points.<br>
+     * Result clusters keep EC of the clusters of representatives, they have no graph.<br>
+     * @param clusters list of clusters of representatives
+     * @return list of clusters of original points
+     */
+    public List<Cluster> expand(List<Cluster> clusters) {
+        List<Cluster> expandedClusters = new ArrayList<>(clusters.size());
+        for (Cluster cluster : clusters) {
+            List<Point> points = new ArrayList<>();
+            cluster.getPoints().forEach(p -> points.addAll(representedPoints.get(p.getId())));
+
+            Cluster expandedCluster = new Cluster();
+            expandedCluster.setPoints(points);
+            expandedCluster.setEC(cluster.getEC());
+            expandedClusters.add(expandedCluster);
+        }
+
+        return expandedClusters;
+    }
+}
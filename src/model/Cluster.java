@@ -10,6 +10,7 @@ import java.util.stream.Collectors;
 public class Cluster {
     private String name; // Cluster name
     private List<Point> points; // List clustered points
+    private int weight; // Number of original points represented by clustered points
     private Double[][] graph; // Complete graph of clustered points
     private double EC; // Internal inter - connectivity results
     private Results results; // Clustering results
@@ -28,6 +29,7 @@ public class Cluster {
 
     public void setPoints(List<Point> points) {
         this.points = points;
+        this.weight = points.stream().mapToInt(Point::getWeight).sum();
 
         Map<String, Long> originalClusterNamesFrequencies = points.stream()
                 .map(Point::getOriginalCluster)
@@ -40,6 +42,14 @@ public class Cluster {
                 .orElse(null);
     }
 
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
     public Double[][] getGraph() {
         return graph;
     }
@@ -0,0 +1,74 @@
+package model;
+
+public class ClusterSummary {
+    private int id; // Identifier
+    private int nrOfPoints; // Number of clustered points
+    private double EC; // Internal inter - connectivity results
+    private double latitude, longitude; // Coordinates of the centroid
+    private double radius; // Maximal distance between the centroid and clustered point
+
+    public ClusterSummary(int id, int nrOfPoints, double EC, double latitude, double longitude, double radius) {
+        this.id = id;
+        this.nrOfPoints = nrOfPoints;
+        this.EC = EC;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.radius = radius;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getNrOfPoints() {
+        return nrOfPoints;
+    }
+
+    public void setNrOfPoints(int nrOfPoints) {
+        this.nrOfPoints = nrOfPoints;
+    }
+
+    public double getEC() {
+        return EC;
+    }
+
+    public void setEC(double EC) {
+        this.EC = EC;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    public void setRadius(double radius) {
+        this.radius = radius;
+    }
+
+    public Point getCentroid() {
+        return new Point(id, latitude, longitude);
+    }
+
+    public String toString() {
+        return "Cluster: " + id + ", Points: " + nrOfPoints + ", EC: " + EC;
+    }
+}
@@ -5,6 +5,7 @@ public class Point {
     private String originalCluster; // Original cluster name
     private double latitude, longitude; // Latitude, Longitude
     private double x, y; // X,Y coordinates
+    private int weight = 1; // Number of original points represented by the point
 
     public Point() {
     }
@@ -68,6 +69,14 @@ public class Point {
         this.y = y;
     }
 
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -76,6 +85,7 @@ public class Point {
         Point point = (Point) o;
 
         if (id != point.id) return false;
+        if (weight != point.weight) return false;
         if (Double.compare(point.latitude, latitude) != 0) return false;
         if (Double.compare(point.longitude, longitude) != 0) return false;
         if (Double.compare(point.x, x) != 0) return false;
@@ -88,6 +98,7 @@ public class Point {
         int result;
         long temp;
         result = id;
+        result = 31 * result + weight;
         result = 31 * result + (originalCluster != null ? originalCluster.hashCode() : 0);
         temp = Double.doubleToLongBits(latitude);
         result = 31 * result + (int) (temp ^ (temp >>> 32));
@@ -0,0 +1,77 @@
+package model;
+
+public class PrecisionReport {
+    private int nrOfPoints; // Total number of points
+    private int nrOfReferenceClusters; // Number of clusters of the double precision run
+    private int nrOfCompactClusters; // Number of clusters of the compact run
+    private int nrOfChangedPoints; // Number of points outside of the best matching reference cluster
+    private double adjustedRandIndex; // Adjusted Rand Index between both clusterings
+    private long referenceTimeMs, compactTimeMs; // Time of both runs
+    private long referenceMemory, compactMemory; // Estimated memory of the graphs of both runs in bytes
+
+    public PrecisionReport(int nrOfPoints, int nrOfReferenceClusters, int nrOfCompactClusters, int nrOfChangedPoints,
+                           double adjustedRandIndex, long referenceTimeMs, long compactTimeMs,
+                           long referenceMemory, long compactMemory) {
+        this.nrOfPoints = nrOfPoints;
+        this.nrOfReferenceClusters = nrOfReferenceClusters;
+        this.nrOfCompactClusters = nrOfCompactClusters;
+        this.nrOfChangedPoints = nrOfChangedPoints;
+        this.adjustedRandIndex = adjustedRandIndex;
+        this.referenceTimeMs = referenceTimeMs;
+        this.compactTimeMs = compactTimeMs;
+        this.referenceMemory = referenceMemory;
+        this.compactMemory = compactMemory;
+    }
+
+    /**
+     * Method to check if both runs give the same clusters
+     * @return true if each compact cluster has exactly the points of one reference cluster
+     */
+    public boolean isIdentical() {
+        return nrOfChangedPoints == 0 && nrOfReferenceClusters == nrOfCompactClusters;
+    }
+
+    public int getNrOfPoints() {
+        return nrOfPoints;
+    }
+
+    public int getNrOfReferenceClusters() {
+        return nrOfReferenceClusters;
+    }
+
+    public int getNrOfCompactClusters() {
+        return nrOfCompactClusters;
+    }
+
+    public int getNrOfChangedPoints() {
+        return nrOfChangedPoints;
+    }
+
+    public double getAdjustedRandIndex() {
+        return adjustedRandIndex;
+    }
+
+    public long getReferenceTimeMs() {
+        return referenceTimeMs;
+    }
+
+    public long getCompactTimeMs() {
+        return compactTimeMs;
+    }
+
+    public long getReferenceMemory() {
+        return referenceMemory;
+    }
+
+    public long getCompactMemory() {
+        return compactMemory;
+    }
+
+    public String toString() {
+        return "Points: " + nrOfPoints + ", identical: " + isIdentical()
+                + ", changed points: " + nrOfChangedPoints + ", ARI: " + adjustedRandIndex
+                + ", clusters: " + nrOfReferenceClusters + " / " + nrOfCompactClusters
+                + ", time [ms]: " + referenceTimeMs + " / " + compactTimeMs
+                + ", graphs memory [MB]: " + referenceMemory / (1024 * 1024) + " / " + compactMemory / (1024 * 1024);
+    }
+}
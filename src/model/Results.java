@@ -5,6 +5,9 @@ public class Results {
     private int nrOfPositiveClassifiedPoints; // Number of positive classified points
     private double accuracy; // Accuracy : nrOfPoints / nrOfPositiveClassifiedPoints
     private double purity; // Purity
+    private double adjustedRandIndex = Double.NaN; // Adjusted Rand Index, computed only for the whole clustering
+    private double normalizedMutualInformation = Double.NaN; // Normalized Mutual Information, computed only for the whole clustering
+    private double fMeasure = Double.NaN; // F-measure, computed only for the whole clustering
 
     public Results(int nrOfPoints, int nrOfPositiveClassifiedPoints, double accuracy, double purity) {
         this.nrOfPoints = nrOfPoints;
@@ -13,6 +16,14 @@ public class Results {
         this.purity = purity;
     }
 
+    public Results(int nrOfPoints, int nrOfPositiveClassifiedPoints, double accuracy, double purity,
+                   double adjustedRandIndex, double normalizedMutualInformation, double fMeasure) {
+        this(nrOfPoints, nrOfPositiveClassifiedPoints, accuracy, purity);
+        this.adjustedRandIndex = adjustedRandIndex;
+        this.normalizedMutualInformation = normalizedMutualInformation;
+        this.fMeasure = fMeasure;
+    }
+
     public int getNrOfPoints() {
         return nrOfPoints;
     }
@@ -46,7 +57,35 @@ public class Results {
         this.purity = purity;
     }
 
+    public double getAdjustedRandIndex() {
+        return adjustedRandIndex;
+    }
+
+    public void setAdjustedRandIndex(double adjustedRandIndex) {
+        this.adjustedRandIndex = adjustedRandIndex;
+    }
+
+    public double getNormalizedMutualInformation() {
+        return normalizedMutualInformation;
+    }
+
+    public void setNormalizedMutualInformation(double normalizedMutualInformation) {
+        this.normalizedMutualInformation = normalizedMutualInformation;
+    }
+
+    public double getFMeasure() {
+        return fMeasure;
+    }
+
+    public void setFMeasure(double fMeasure) {
+        this.fMeasure = fMeasure;
+    }
+
     public String toString() {
-        return "Accuracy: " + accuracy + ", Purity: " + purity;
+        String result = "Accuracy: " + accuracy + ", Purity: " + purity;
+        if (!Double.isNaN(adjustedRandIndex)) {
+            result += ", ARI: " + adjustedRandIndex + ", NMI: " + normalizedMutualInformation + ", F-measure: " + fMeasure;
+        }
+        return result;
     }
 }
\ No newline at end of file
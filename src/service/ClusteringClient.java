@@ -0,0 +1,87 @@
+package service;
+
+import model.Point;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Loopback client of the ClusteringService
+ */
+public class ClusteringClient {
+
+    private static final String SEPARATOR = ";";
+
+    private final String baseUrl; // Address of the service
+
+    /**
+     * ClusteringClient object constructor
+     * @param port port of the service on the loopback interface
+     */
+    public ClusteringClient(int port) {
+        this.baseUrl = "http://127.0.0.1:" + port + "/cluster";
+    }
+
+    /**
+     * Method to cluster dataset from the data directory of the service
+     * @param dataset name of the dataset file
+     * @param k Number of neighbours for the first part of the algorithm (k-nn algorithm)
+     * @param initNrOfClusters Expected number of clusters after the second part of the algorithm
+     * @param resultNrOfClusters Expected number of clusters at the end of the algorithm
+     * @return response of the service in JSON format
+     * @throws IOException if the request fails or the service responds with an error
+     */
+    public String clusterDataset(String dataset, int k, int initNrOfClusters, int resultNrOfClusters) throws IOException {
+        return post(getQuery(k, initNrOfClusters, resultNrOfClusters) + "&dataset=" + URLEncoder.encode(dataset, "UTF-8"), "");
+    }
+
+    /**
+     * Method to cluster points sent in the request body
+     * @param points list of points
+     * @param k Number of neighbours for the first part of the algorithm (k-nn algorithm)
+     * @param initNrOfClusters Expected number of clusters after the second part of the algorithm
+     * @param resultNrOfClusters Expected number of clusters at the end of the algorithm
+     * @return response of the service in JSON format
+     * @throws IOException if the request fails or the service responds with an error
+     */
+    public String clusterPoints(List<Point> points, int k, int initNrOfClusters, int resultNrOfClusters) throws IOException {
+        String csv = "city" + SEPARATOR + "state_name" + SEPARATOR + "lat" + SEPARATOR + "lng\n" + points.stream()
+                .map(p -> p.getId() + SEPARATOR + p.getOriginalCluster() + SEPARATOR + p.getLatitude() + SEPARATOR + p.getLongitude())
+                .collect(Collectors.joining("\n"));
+        return post(getQuery(k, initNrOfClusters, resultNrOfClusters), csv);
+    }
+
+    private String getQuery(int k, int initNrOfClusters, int resultNrOfClusters) {
+        return "?k=" + k + "&init=" + initNrOfClusters + "&result=" + resultNrOfClusters;
+    }
+
+    private String post(String query, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + query).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+
+            int status = connection.getResponseCode();
+            InputStream input = status == HttpURLConnection.HTTP_OK ? connection.getInputStream() : connection.getErrorStream();
+            String response;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+                response = reader.lines().collect(Collectors.joining("\n"));
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Service responded with status " + status + ": " + response);
+            }
+
+            return response;
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
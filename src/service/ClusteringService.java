@@ -0,0 +1,410 @@
+package service;
+
+import algorithm.ChameleonAlgorithm;
+import algorithm.StorageMode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import helpers.CsvParser;
+import helpers.LruCache;
+import helpers.PointDeduplicator;
+import model.Cluster;
+import model.Point;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Embedded HTTP clustering service.<br>
+ * POST /cluster?k=..&amp;init=..&amp;result=..&amp;dataset=.. clusters dataset from the data directory,<br>
+ * without dataset parameter it clusters points sent in the request body in the csv format of CsvParser.<br>
+ * Malformed csv content is answered with status 400 and the number of the malformed line.<br>
+ * Parsed datasets and results of the first part of the algorithm are kept in LRU caches,<br>
+ * concurrent requests with the same parameters share a single computation.<br>
+ * Graphs are kept in FLOAT storage, the cache of the first part is limited by their estimated memory<br>
+ * and graphs of points sent in the request body are reserved from the same memory budget.<br>
+ * Request which does not fit in the free budget is answered with status 503.<br>
+ * Response: {"clusters":[{"name":"...","points":[ids]}, ...]}, ids are indexes of points in the csv.<br>
+ */
+public class ClusteringService {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_CACHE_CAPACITY = 8;
+    private static final double DEFAULT_MEMORY_FRACTION = 0.5; // Part of the maximal heap used as default memory budget of the graphs
+    private static final StorageMode STORAGE_MODE = StorageMode.FLOAT; // Storage of the graphs of the first part
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+    private static final String DATASET_NAME_PATTERN = "[A-Za-z0-9_\\-][A-Za-z0-9_.\\-]*";
+
+    private final File dataDirectory; // Directory with datasets
+    private final LruCache<String, CompletableFuture<List<Point>>> datasets; // Parsed datasets by name
+    private final LruCache<String, CompletableFuture<PreparedPoints>> preparedDatasets; // First part of the algorithm by dataset and k, weighted by memory of the graphs
+    private final long memoryBudgetBytes; // Memory of the cached graphs and graphs of points sent in the request body
+    private final Map<String, CompletableFuture<String>> runningRequests = new ConcurrentHashMap<>(); // Responses being computed by request parameters
+    private final ExecutorService executor = Executors.newCachedThreadPool(); // Executor of requests and computations
+    private HttpServer server;
+
+    /**
+     * Points prepared for clustering - deduplicated, after the first part of the algorithm.<br>
+     * Storage of the graphs is released on close, but not before the requests which use it finish.<br>
+     */
+    private static class PreparedPoints implements AutoCloseable {
+        private final PointDeduplicator pointDeduplicator;
+        private final List<Point> representatives; // Clustered points after deduplication
+        private final int k; // Number of neighbours for the first part of the algorithm
+        private ChameleonAlgorithm chameleonAlgorithm; // Algorithm after the first part, null before runFirstPart
+        private int nrOfUsers; // Number of requests clustering the points
+        private boolean closed;
+
+        private PreparedPoints(List<Point> points, int k) {
+            this.pointDeduplicator = new PointDeduplicator(0);
+            this.representatives = pointDeduplicator.deduplicate(points);
+            if (k < 1 || k >= representatives.size()) {
+                throw new IllegalArgumentException("k has to be between 1 and " + (representatives.size() - 1));
+            }
+            this.k = k;
+        }
+
+        private long estimateMemory() {
+            return STORAGE_MODE.estimateMemory(representatives.size());
+        }
+
+        private void runFirstPart() {
+            ChameleonAlgorithm algorithm = new ChameleonAlgorithm(k, 1, 1, representatives, STORAGE_MODE);
+            algorithm.runFirstPart();
+            synchronized (this) {
+                chameleonAlgorithm = algorithm;
+            }
+        }
+
+        private List<Cluster> cluster(int initNrOfClusters, int resultNrOfClusters) {
+            // More initial clusters than points would leave empty clusters after the partition
+            if (initNrOfClusters < 1 || initNrOfClusters > representatives.size()) {
+                throw new IllegalArgumentException("init has to be between 1 and " + representatives.size());
+            }
+            ChameleonAlgorithm algorithm;
+            synchronized (this) {
+                if (chameleonAlgorithm == null) {
+                    throw new IllegalStateException("Prepared dataset was evicted from the cache, try again");
+                }
+                algorithm = chameleonAlgorithm;
+                nrOfUsers++;
+            }
+            try {
+                ChameleonAlgorithm copy = algorithm.copyAfterFirstPart(initNrOfClusters, resultNrOfClusters);
+                copy.runSecondPart();
+                return pointDeduplicator.expand(copy.runThirdPart());
+            } finally {
+                synchronized (this) {
+                    nrOfUsers--;
+                    releaseIfUnused();
+                }
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            releaseIfUnused();
+        }
+
+        private void releaseIfUnused() {
+            if (closed && nrOfUsers == 0 && chameleonAlgorithm != null) {
+                chameleonAlgorithm.close();
+                chameleonAlgorithm = null;
+            }
+        }
+    }
+
+    /**
+     * ClusteringService object constructor
+     * @param dataDirectory directory with datasets
+     * @param cacheCapacity number of datasets kept in memory
+     * @param memoryBudgetBytes estimated memory of the graphs - cached results of the first part of the algorithm<br>
+     *                          and graphs of points sent in the request body
+     */
+    public ClusteringService(File dataDirectory, int cacheCapacity, long memoryBudgetBytes) {
+        this.dataDirectory = dataDirectory;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.datasets = new LruCache<>(cacheCapacity);
+        // Evicted graphs are released as soon as the requests using them finish
+        this.preparedDatasets = new LruCache<>(memoryBudgetBytes,
+                prepared -> prepared.thenAccept(PreparedPoints::close));
+    }
+
+    /**
+     * Arguments: port (default 8080), dataDirectory (default data)
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        File dataDirectory = new File(args.length > 1 ? args[1] : "data");
+
+        ClusteringService service = new ClusteringService(dataDirectory, DEFAULT_CACHE_CAPACITY,
+                (long) (Runtime.getRuntime().maxMemory() * DEFAULT_MEMORY_FRACTION));
+        service.start(port);
+        System.out.println("Clustering service listening on port " + service.getPort());
+    }
+
+    /**
+     * Method to start the service on the loopback interface
+     * @param port port of the service, 0 for any free port
+     * @throws IOException
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/cluster", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        String response;
+        try {
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            int k = getIntParameter(parameters, "k");
+            int initNrOfClusters = getIntParameter(parameters, "init");
+            int resultNrOfClusters = getIntParameter(parameters, "result");
+            if (resultNrOfClusters < 1) {
+                throw new IllegalArgumentException("result has to be positive");
+            }
+
+            String dataset = parameters.get("dataset");
+            if (dataset != null) {
+                response = clusterDataset(dataset, k, initNrOfClusters, resultNrOfClusters);
+            } else {
+                List<Point> points = new ArrayList<>();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+                new CsvParser().forEachPoint(reader, points::add);
+                response = clusterPoints(points, k, initNrOfClusters, resultNrOfClusters);
+            }
+        } catch (FileNotFoundException e) {
+            status = 404;
+            response = toJsonError(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            response = toJsonError(e.getMessage());
+        } catch (IllegalStateException e) {
+            status = 503;
+            response = toJsonError(e.getMessage());
+        } catch (Exception e) {
+            status = 500;
+            response = toJsonError(String.valueOf(e.getMessage()));
+        } catch (OutOfMemoryError e) {
+            // Cached graphs are released, so the service can answer the next requests
+            preparedDatasets.clear();
+            datasets.clear();
+            status = 503;
+            response = toJsonError("Not enough memory: " + e.getMessage());
+        } catch (Error e) {
+            status = 500;
+            response = toJsonError(String.valueOf(e));
+        }
+
+        byte[] body = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Method to cluster points sent in the request body, memory of their graphs is reserved from the memory budget
+     * @return response in JSON format
+     */
+    private String clusterPoints(List<Point> points, int k, int initNrOfClusters, int resultNrOfClusters) {
+        PreparedPoints preparedPoints = new PreparedPoints(points, k);
+        long requiredMemory = checkMemory(preparedPoints);
+        if (!preparedDatasets.reserve(requiredMemory)) {
+            throw new IllegalStateException("Not enough free memory for " + points.size() + " points, try again later");
+        }
+        try {
+            preparedPoints.runFirstPart();
+            return toJson(preparedPoints.cluster(initNrOfClusters, resultNrOfClusters));
+        } finally {
+            preparedPoints.close();
+            preparedDatasets.release(requiredMemory);
+        }
+    }
+
+    /**
+     * Method to check if the graphs of the points can fit in the memory budget
+     * @param preparedPoints points before the first part of the algorithm
+     * @return estimated memory of the graphs in bytes
+     * @throws IllegalArgumentException if the graphs need more memory than the whole budget
+     */
+    private long checkMemory(PreparedPoints preparedPoints) {
+        long requiredMemory = preparedPoints.estimateMemory();
+        if (requiredMemory > memoryBudgetBytes) {
+            throw new IllegalArgumentException("Too many points: " + preparedPoints.representatives.size()
+                    + " points need " + requiredMemory / BYTES_PER_MEGABYTE + " MB, memory budget is "
+                    + memoryBudgetBytes / BYTES_PER_MEGABYTE + " MB");
+        }
+
+        return requiredMemory;
+    }
+
+    /**
+     * Method to cluster dataset from the data directory.<br>
+     * Concurrent requests with the same parameters wait for the same response,<br>
+     * requests with the same dataset and k share the first part of the algorithm.<br>
+     * @return response in JSON format
+     * @throws Exception
+     */
+    private String clusterDataset(String dataset, int k, int initNrOfClusters, int resultNrOfClusters) throws Exception {
+        if (!dataset.matches(DATASET_NAME_PATTERN)) {
+            throw new IllegalArgumentException("Invalid dataset name: " + dataset);
+        }
+
+        String requestKey = dataset + ";" + k + ";" + initNrOfClusters + ";" + resultNrOfClusters;
+        CompletableFuture<String> response = runningRequests.computeIfAbsent(requestKey, key -> prepareDataset(dataset, k)
+                .thenApplyAsync(p -> toJson(p.cluster(initNrOfClusters, resultNrOfClusters)), executor));
+        response.whenComplete((r, e) -> runningRequests.remove(requestKey, response));
+
+        try {
+            return response.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Method to get cached result of the first part of the algorithm for the dataset or start its computation.<br>
+     * Weight of the cache entry is set to the estimated memory of the graphs before they are created.<br>
+     * @param dataset name of the dataset file
+     * @param k number of neighbours for the first part of the algorithm
+     * @return future points prepared for clustering
+     */
+    private CompletableFuture<PreparedPoints> prepareDataset(String dataset, int k) {
+        String preparedKey = dataset + ";" + k;
+        CompletableFuture<PreparedPoints> prepared = preparedDatasets.computeIfAbsent(preparedKey, key -> {
+            CompletableFuture<PreparedPoints> entry = new CompletableFuture<>();
+            readDataset(dataset).thenApplyAsync(points -> {
+                PreparedPoints preparedPoints = new PreparedPoints(points, k);
+                if (!preparedDatasets.setWeight(key, entry, checkMemory(preparedPoints))) {
+                    throw new IllegalStateException("Not enough free memory for dataset " + dataset + ", try again later");
+                }
+                preparedPoints.runFirstPart();
+                return preparedPoints;
+            }, executor).whenComplete((p, e) -> {
+                if (e != null) {
+                    entry.completeExceptionally(e);
+                } else {
+                    entry.complete(p);
+                }
+            });
+            return entry;
+        });
+        // Failures are not cached
+        prepared.whenComplete((p, e) -> {
+            if (e != null) {
+                preparedDatasets.remove(preparedKey);
+            }
+        });
+
+        return prepared;
+    }
+
+    private CompletableFuture<List<Point>> readDataset(String dataset) {
+        CompletableFuture<List<Point>> points = datasets.computeIfAbsent(dataset, key -> CompletableFuture.supplyAsync(() -> {
+            File file = new File(dataDirectory, dataset);
+            List<Point> datasetPoints = new ArrayList<>();
+            try {
+                if (!file.isFile()) {
+                    throw new FileNotFoundException("Dataset not found: " + dataset);
+                }
+                new CsvParser().forEachPoint(file.getPath(), datasetPoints::add);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            return datasetPoints;
+        }, executor));
+        points.whenComplete((p, e) -> {
+            if (e != null) {
+                datasets.remove(dataset);
+            }
+        });
+
+        return points;
+    }
+
+    private Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            String[] keyValue = parameter.split("=", 2);
+            parameters.put(URLDecoder.decode(keyValue[0], "UTF-8"),
+                    keyValue.length > 1 ? URLDecoder.decode(keyValue[1], "UTF-8") : "");
+        }
+
+        return parameters;
+    }
+
+    private int getIntParameter(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid parameter " + name + ": " + value);
+        }
+    }
+
+    private static String toJson(List<Cluster> clusters) {
+        StringBuilder json = new StringBuilder("{\"clusters\":[");
+        for (int i = 0; i < clusters.size(); i++) {
+            Cluster cluster = clusters.get(i);
+            json.append(i > 0 ? "," : "").append("{\"name\":").append(toJsonString(cluster.getName())).append(",\"points\":[");
+            List<Point> points = cluster.getPoints();
+            for (int j = 0; j < points.size(); j++) {
+                json.append(j > 0 ? "," : "").append(points.get(j).getId());
+            }
+            json.append("]}");
+        }
+
+        return json.append("]}").toString();
+    }
+
+    private static String toJsonError(String message) {
+        return "{\"error\":" + toJsonString(message) + "}";
+    }
+
+    private static String toJsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder json = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+
+        return json.append('"').toString();
+    }
+}